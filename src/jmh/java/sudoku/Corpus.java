@@ -0,0 +1,37 @@
+package sudoku;
+
+import grid.Grid;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Loads the benchmark corpora in data/bench. Each corpus is graded by the
+ * techniques needed to solve its grids:
+ * easy: sole and unique candidates only
+ * medium: also needs locked candidates
+ * hard: also needs XY-Wing, XYZ-Wing, or fish, generated with
+ *       Solver --generate 10 --difficulty hard --seed 2026
+ * extreme: well-known grids which are among the hardest to solve, and
+ *          cannot be finished by the solving techniques
+ */
+final class Corpus {
+    private Corpus() {}
+
+    /**
+     * @param grade: easy, medium, hard, or extreme
+     * @return Values of every cell of each grid in the corpus, 0 if unsolved
+     */
+    static int[][] load(String grade) throws IOException {
+        ArrayList<int[]> values = new ArrayList<>();
+        for(Grid grid : Solver.loadGrids(new File("data/bench/" + grade + ".txt"))) {
+            int[] cells = new int[grid.getNumCells()];
+            for(int cell = 0; cell < grid.getNumCells(); cell++) {
+                cells[cell] = grid.getSolution(cell);
+            }
+            values.add(cells);
+        }
+        return values.toArray(new int[0][]);
+    }
+}
@@ -0,0 +1,47 @@
+package sudoku;
+
+import grid.Grid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of constructing a grid, including the initial elimination
+ * of the givens from their peers. Each operation constructs every grid in the corpus.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GridBenchmark {
+    @Param({"easy", "medium", "hard", "extreme"})
+    public String grade;
+
+    private int[][] corpus;
+
+    @Setup
+    public void loadCorpus() throws IOException {
+        corpus = Corpus.load(grade);
+    }
+
+    @Benchmark
+    public void construct(Blackhole blackhole) {
+        for(int[] values : corpus) {
+            blackhole.consume(new Grid("Benchmark", values));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package sudoku;
+
+import grid.Grid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures solving every grid in the corpus from scratch, including
+ * constructing each grid.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SolveBenchmark {
+    @Param({"easy", "medium", "hard", "extreme"})
+    public String grade;
+
+    /** techniques: solving techniques with search fallback, dlx: Dancing Links */
+    @Param({"techniques", "dlx"})
+    public String engineName;
+
+    private int[][] corpus;
+    private SolverEngine engine;
+
+    @Setup
+    public void setUp() throws IOException {
+        corpus = Corpus.load(grade);
+        engine = engineName.equals("dlx") ? new DancingLinksEngine() : new TechniqueEngine(true);
+    }
+
+    @Benchmark
+    public void solve(Blackhole blackhole) {
+        for(int[] values : corpus) {
+            blackhole.consume(engine.solve(new Grid("Benchmark", values)));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package sudoku;
+
+import grid.Grid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single application of each solving technique to every grid in
+ * the corpus. Grids are rolled back to a snapshot of their initial state
+ * before each application, so every operation does the same work.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TechniqueBenchmark {
+    @Param({"easy", "medium", "hard", "extreme"})
+    public String grade;
+
+    private Grid[] grids;
+
+    @Setup
+    public void loadCorpus() throws IOException {
+        int[][] corpus = Corpus.load(grade);
+        grids = new Grid[corpus.length];
+        for(int i = 0; i < corpus.length; i++) {
+            grids[i] = new Grid("Benchmark", corpus[i]);
+            // stays open, so each application can be rolled back
+            grids[i].pushSnapshot();
+        }
+    }
+
+    @Benchmark
+    public void lockedCandidatesElimination() {
+        for(int i = 0; i < grids.length; i++) {
+            grids[i].rollback();
+            Solver.lockedCandidatesElimination(grids[i]);
+        }
+    }
+
+    @Benchmark
+    public void nakedSetElimination() {
+        for(int i = 0; i < grids.length; i++) {
+            grids[i].rollback();
+            Solver.nakedSetElimination(grids[i]);
+        }
+    }
+
+    @Benchmark
+    public void hiddenSetElimination() {
+        for(int i = 0; i < grids.length; i++) {
+            grids[i].rollback();
+            Solver.hiddenSetElimination(grids[i]);
+        }
+    }
+
+    @Benchmark
+    public void fishElimination() {
+        for(int i = 0; i < grids.length; i++) {
+            grids[i].rollback();
+            Fish.fishElimination(grids[i]);
+        }
+    }
+
+    @Benchmark
+    public void xyWingElimination() {
+        for(int i = 0; i < grids.length; i++) {
+            grids[i].rollback();
+            Wings.xyWingElimination(grids[i]);
+        }
+    }
+
+    @Benchmark
+    public void xyzWingElimination() {
+        for(int i = 0; i < grids.length; i++) {
+            grids[i].rollback();
+            Wings.xyzWingElimination(grids[i]);
+        }
+    }
+
+    @Benchmark
+    public void soleCandidateSolving() {
+        for(int i = 0; i < grids.length; i++) {
+            grids[i].rollback();
+            Solver.soleCandidateSolving(grids[i]);
+        }
+    }
+
+    @Benchmark
+    public void uniqueCandidateSolving(Blackhole blackhole) {
+        for(int i = 0; i < grids.length; i++) {
+            grids[i].rollback();
+            blackhole.consume(Solver.uniqueCandidateSolving(grids[i]));
+        }
+    }
+}
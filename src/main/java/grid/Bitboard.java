@@ -0,0 +1,51 @@
+package grid;
+
+/**
+ * Static helpers for bitboards: sets of cells stored as longs, with cell n at
+ * bit n % 64 of long n / 64. The number of longs in a bitboard depends on the
+ * size of the grid, see {@link Layout#getBitboardLength()}. Bitboards are kept
+ * in long arrays, the bitboard with index i starting at offset i * length, so
+ * that a set of them can be held without allocating an object for each.
+ * Cells can be iterated without allocating:
+ * <pre>
+ * for(int word = 0; word < length; word++) {
+ *     for(long bits = boards[offset + word]; bits != 0; bits &= bits - 1) {
+ *         int cell = Bitboard.cell(word, bits);
+ *     }
+ * }
+ * </pre>
+ */
+public final class Bitboard {
+
+    private Bitboard() {}
+
+    /**
+     * @return Number of longs in a bitboard of numCells cells
+     */
+    public static int length(int numCells) {
+        return (numCells + 63) / 64;
+    }
+
+    /**
+     * Adds a cell to the bitboard starting at offset.
+     */
+    public static void add(long[] boards, int offset, int cell) {
+        boards[offset + (cell >>> 6)] |= 1L << cell;
+    }
+
+    /**
+     * @return true if the bitboard starting at offset contains the cell
+     */
+    public static boolean contains(long[] boards, int offset, int cell) {
+        return (boards[offset + (cell >>> 6)] & (1L << cell)) != 0;
+    }
+
+    /**
+     * @param word: Index of the long within its bitboard
+     * @param bits: Bits of the long, at least one set
+     * @return Index of the cell at the lowest set bit
+     */
+    public static int cell(int word, long bits) {
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+}
@@ -0,0 +1,79 @@
+package grid;
+
+/**
+ * Static helpers for working with candidate bitmasks.
+ * Bit n (1 to the grid's size) of a mask is set if n is a candidate. Bit 0
+ * is set if the cell is unsolved, and cleared once the cell's solution is known.
+ * An int holds the candidates of grids up to 25x25, see {@link Layout#MAX_BOX_SIZE}.
+ * Candidates can be iterated without allocating:
+ * <pre>
+ * for(int m = mask; m != 0; m = Candidates.withoutFirst(m)) {
+ *     int candidate = Candidates.first(m);
+ * }
+ * </pre>
+ */
+public final class Candidates {
+    public static final int UNSOLVED = 1;
+    /** Every candidate bit, used to clear the unsolved bit. See all(int) for the candidates of a grid */
+    public static final int ALL = ~UNSOLVED; // bits 1-31
+
+    private Candidates() {}
+
+    /**
+     * @param size: Number of candidates in the grid
+     * @return Mask with candidates 1 to size set
+     */
+    public static int all(int size) {
+        return ((1 << size) - 1) << 1;
+    }
+
+    /**
+     * @return Mask with only the given candidate set
+     */
+    public static int of(int candidate) {
+        return 1 << candidate;
+    }
+
+    public static boolean contains(int mask, int candidate) {
+        return (mask & (1 << candidate)) != 0;
+    }
+
+    /**
+     * @return Number of candidates in mask, ignoring the unsolved bit
+     */
+    public static int count(int mask) {
+        return Integer.bitCount(mask & ALL);
+    }
+
+    /**
+     * @return Lowest candidate in mask, or 0 if there are none
+     */
+    public static int first(int mask) {
+        int candidates = mask & ALL;
+        return candidates == 0 ? 0 : Integer.numberOfTrailingZeros(candidates);
+    }
+
+    /**
+     * @return Mask with its lowest candidate (and the unsolved bit) removed
+     */
+    public static int withoutFirst(int mask) {
+        int candidates = mask & ALL;
+        return candidates & (candidates - 1);
+    }
+
+    /**
+     * @return Candidates formatted as a list, e.g. [1,4,7]
+     */
+    public static String toString(int mask) {
+        StringBuilder out = new StringBuilder();
+        out.append('[');
+        for(int m = mask & ALL; m != 0; m = withoutFirst(m)) {
+            if(out.length() > 1) {
+                out.append(',');
+            }
+            out.append(first(m));
+        }
+        out.append(']');
+        return out.toString();
+    }
+}
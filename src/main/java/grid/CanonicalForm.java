@@ -0,0 +1,379 @@
+package grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The minimal form of a grid under the symmetries of sudoku, and the
+ * transform which maps the grid to it. Transposing the grid, reordering bands
+ * and stacks, reordering the rows within a band or the columns within a stack,
+ * and relabelling digits all give an equivalent grid, and every grid in the
+ * same class has the same canonical form.
+ *
+ * The canonical form is the transform of the grid's values with the smallest
+ * sequence of row keys, where digits are relabelled 1-9 in order of first
+ * appearance in row-major order. A row's key puts the rows with the most solved
+ * cells, furthest to the left, first, and breaks ties by the relabelled digits.
+ * Preferring solved cells keeps the number of ties small, as an empty row
+ * looks the same under every column order. The form is found with a
+ * branch-and-bound search that builds it one row at a time, keeping only the
+ * partial transforms that tie for the smallest rows so far. Grids with many
+ * automorphisms can tie on an enormous number of transforms, so at most
+ * MAX_TIES are kept. Beyond that, equivalent grids may occasionally get
+ * different forms, but the form is still always a transform of the grid.
+ * Only standard 9x9 grids are supported.
+ */
+public final class CanonicalForm {
+    private static final Layout LAYOUT = Layout.STANDARD;
+    private static final int SIZE = LAYOUT.getSize();
+    private static final int BOX_SIZE = LAYOUT.getBoxSize();
+    private static final int NUM_CELLS = LAYOUT.getNumCells();
+
+    /** Maximum number of tied partial transforms kept at each row */
+    public static final int MAX_TIES = 1 << 12;
+
+    /** Every ordering of the lines within a band, and of the bands */
+    private static final int[][] BOX_PERMS = permutations(BOX_SIZE);
+    /**
+     * Every ordering of lines which keeps the lines of each band together.
+     * Order i * p^3 + w0 + w1 * p + w2 * p^2, where p is the number of
+     * BOX_PERMS, orders the bands by BOX_PERMS[i] and the lines of the n-th
+     * band in that order by BOX_PERMS[wn].
+     */
+    private static final int[][] LINE_ORDERS;
+
+    static {
+        int[][] boxPerms = BOX_PERMS;
+        int numOrders = boxPerms.length;
+        for(int i = 0; i < BOX_SIZE; i++) {
+            numOrders *= boxPerms.length;
+        }
+        LINE_ORDERS = new int[numOrders][SIZE];
+        int count = 0;
+        for(int[] bands : boxPerms) {
+            for(int lines = 0; lines < numOrders / boxPerms.length; lines++) {
+                int perms = lines;
+                for(int b = 0; b < BOX_SIZE; b++) {
+                    int[] within = boxPerms[perms % boxPerms.length];
+                    perms /= boxPerms.length;
+                    for(int i = 0; i < BOX_SIZE; i++) {
+                        LINE_ORDERS[count][b * BOX_SIZE + i] = bands[b] * BOX_SIZE + within[i];
+                    }
+                }
+                count++;
+            }
+        }
+    }
+
+    private final int[] values; // canonical values
+    private final boolean transposed;
+    private final int[] rowOrder; // canonical row r is taken from line rowOrder[r]
+    private final int[] colOrder; // canonical column c is taken from line colOrder[c]
+    private final int[] labels; // canonical digit of each original digit
+
+    private CanonicalForm(int[] grid, State state) {
+        this.transposed = state.transposed;
+        this.rowOrder = state.rows;
+        this.colOrder = LINE_ORDERS[state.colOrder];
+        this.labels = state.labels;
+        // digits which are not in the grid take the remaining labels in order
+        int next = state.nextLabel;
+        for(int digit = 1; digit <= SIZE; digit++) {
+            if(labels[digit] == 0) {
+                labels[digit] = next++;
+            }
+        }
+        this.values = toCanonical(grid);
+    }
+
+    /**
+     * Finds the canonical form of a grid.
+     * @param values: Values of all 81 cells in row-major order, 0 if unsolved
+     */
+    public static CanonicalForm of(int[] values) {
+        if(values.length != NUM_CELLS) {
+            throw new IllegalArgumentException("Only 9x9 grids have a canonical form, grid had "
+                    + values.length + " cells");
+        }
+        ArrayList<State> states = new ArrayList<>();
+        ArrayList<State> next = new ArrayList<>();
+        // first row: the digits of the first row are relabelled 1, 2, 3...
+        // in order, so only the pattern of solved cells matters
+        int bestPattern = 0;
+        for(int t = 0; t < 2; t++) {
+            for(int row = 0; row < SIZE; row++) {
+                bestPattern = Math.max(bestPattern, largestPattern(values, t == 1, row));
+            }
+        }
+        for(int t = 0; t < 2; t++) {
+            for(int row = 0; row < SIZE; row++) {
+                if(largestPattern(values, t == 1, row) == bestPattern) {
+                    addFirstRow(states, values, t == 1, row);
+                }
+            }
+        }
+        int[] scratch = new int[SIZE + 1];
+        // remaining rows, trying each line allowed by the rows already chosen
+        for(int depth = 1; depth < SIZE; depth++) {
+            long best = Long.MAX_VALUE;
+            next.clear();
+            for(State state : states) {
+                int[] colOrder = LINE_ORDERS[state.colOrder];
+                for(int row = 0; row < SIZE; row++) {
+                    if(!state.canAdd(row, depth)) continue;
+                    System.arraycopy(state.labels, 0, scratch, 0, scratch.length);
+                    long key = rowKey(values, state.transposed, row, colOrder, scratch, state.nextLabel);
+                    if(key > best) continue;
+                    if(key < best) {
+                        best = key;
+                        next.clear();
+                    }
+                    if(next.size() < MAX_TIES) {
+                        next.add(state.extend(values, row));
+                    }
+                }
+            }
+            ArrayList<State> swap = states;
+            states = next;
+            next = swap;
+        }
+        return new CanonicalForm(values, states.get(0));
+    }
+
+    /**
+     * Adds a state for every column order which gives the line its largest
+     * pattern, see largestPattern(). These put the stacks in descending order
+     * of their number of solved cells, and the solved cells first within each stack.
+     */
+    private static void addFirstRow(ArrayList<State> states, int[] values, boolean transposed, int row) {
+        int[] counts = new int[BOX_SIZE];
+        int[] stackOrders = new int[BOX_SIZE]; // bitmask of BOX_PERMS which put solved cells first
+        for(int stack = 0; stack < BOX_SIZE; stack++) {
+            for(int col = 0; col < BOX_SIZE; col++) {
+                if(values[source(transposed, row, stack * BOX_SIZE + col)] != 0) {
+                    counts[stack]++;
+                }
+            }
+            for(int w = 0; w < BOX_PERMS.length; w++) {
+                int pattern = 0;
+                for(int col : BOX_PERMS[w]) {
+                    pattern = pattern << 1 | (values[source(transposed, row, stack * BOX_SIZE + col)] != 0 ? 1 : 0);
+                }
+                if(pattern == ((1 << counts[stack]) - 1) << (BOX_SIZE - counts[stack])) {
+                    stackOrders[stack] |= 1 << w;
+                }
+            }
+        }
+        int ordersPerBandOrder = LINE_ORDERS.length / BOX_PERMS.length;
+        for(int i = 0; i < BOX_PERMS.length; i++) {
+            int[] stacks = BOX_PERMS[i];
+            boolean sorted = true;
+            for(int b = 1; b < BOX_SIZE; b++) {
+                sorted &= counts[stacks[b - 1]] >= counts[stacks[b]];
+            }
+            if(sorted) {
+                addFirstRow(states, values, transposed, row, stacks, stackOrders, 0, i * ordersPerBandOrder, 1);
+            }
+        }
+    }
+
+    /**
+     * Adds a state for every combination of the allowed orders within the
+     * stacks from position b onwards.
+     */
+    private static void addFirstRow(ArrayList<State> states, int[] values, boolean transposed, int row,
+                                    int[] stacks, int[] stackOrders, int b, int colOrder, int scale) {
+        if(b == BOX_SIZE) {
+            if(states.size() < MAX_TIES) {
+                states.add(new State(transposed, colOrder).extend(values, row));
+            }
+            return;
+        }
+        for(int orders = stackOrders[stacks[b]]; orders != 0; orders &= orders - 1) {
+            int w = Integer.numberOfTrailingZeros(orders);
+            addFirstRow(states, values, transposed, row, stacks, stackOrders, b + 1,
+                    colOrder + w * scale, scale * BOX_PERMS.length);
+        }
+    }
+
+    /**
+     * @return Largest pattern of a line over every column order, found by
+     *         putting the solved cells first in each stack, and ordering the
+     *         stacks by their number of solved cells
+     */
+    private static int largestPattern(int[] values, boolean transposed, int row) {
+        int[] counts = new int[BOX_SIZE];
+        for(int col = 0; col < SIZE; col++) {
+            if(values[source(transposed, row, col)] != 0) {
+                counts[col / BOX_SIZE]++;
+            }
+        }
+        Arrays.sort(counts);
+        int pattern = 0;
+        for(int i = BOX_SIZE - 1; i >= 0; i--) {
+            pattern = pattern << BOX_SIZE | ((1 << counts[i]) - 1) << (BOX_SIZE - counts[i]);
+        }
+        return pattern;
+    }
+
+    /**
+     * Relabels a line of the grid with the given column order.
+     * @param labels: Labels given so far, updated with any new labels
+     * @param nextLabel: Next label to give
+     * @return Key of the line, smaller for a line which comes first. The high
+     *         bits hold the complement of the pattern of solved cells, with
+     *         the first column at the highest bit, and the low bits hold the
+     *         relabelled digits as a decimal number.
+     */
+    private static long rowKey(int[] values, boolean transposed, int row, int[] colOrder, int[] labels,
+                               int nextLabel) {
+        int pattern = 0;
+        int digits = 0;
+        for(int c = 0; c < SIZE; c++) {
+            int value = values[source(transposed, row, colOrder[c])];
+            if(value != 0 && labels[value] == 0) {
+                labels[value] = nextLabel++;
+            }
+            pattern = pattern << 1 | (value != 0 ? 1 : 0);
+            digits = digits * 10 + labels[value];
+        }
+        return (long) (~pattern & ((1 << SIZE) - 1)) << 32 | digits;
+    }
+
+    /**
+     * @return Index of the original cell in the given row and column of a
+     *         grid which may be transposed
+     */
+    private static int source(boolean transposed, int row, int col) {
+        return transposed ? LAYOUT.index(col, row) : LAYOUT.index(row, col);
+    }
+
+    /**
+     * Maps values of the original grid, e.g. its solution, to the canonical form.
+     * @param original: Values of all 81 cells of the original grid
+     * @return Values of all 81 cells in the canonical form
+     */
+    public int[] toCanonical(int[] original) {
+        int[] canonical = new int[NUM_CELLS];
+        for(int row = 0; row < SIZE; row++) {
+            for(int col = 0; col < SIZE; col++) {
+                canonical[LAYOUT.index(row, col)] = labels[original[source(transposed, rowOrder[row], colOrder[col])]];
+            }
+        }
+        return canonical;
+    }
+
+    /**
+     * Maps values in the canonical form, e.g. a cached solution, back to the original grid.
+     * @param canonical: Values of all 81 cells in the canonical form
+     * @return Values of all 81 cells of the original grid
+     */
+    public int[] fromCanonical(int[] canonical) {
+        int[] digits = new int[SIZE + 1]; // original digit of each label
+        for(int digit = 1; digit <= SIZE; digit++) {
+            digits[labels[digit]] = digit;
+        }
+        int[] original = new int[NUM_CELLS];
+        for(int row = 0; row < SIZE; row++) {
+            for(int col = 0; col < SIZE; col++) {
+                original[source(transposed, rowOrder[row], colOrder[col])] = digits[canonical[LAYOUT.index(row, col)]];
+            }
+        }
+        return original;
+    }
+
+    /**
+     * @return Values of all 81 cells in the canonical form. Must not be modified.
+     */
+    public int[] getValues() {
+        return values;
+    }
+
+    /**
+     * @return The canonical values as a string of 81 digits, e.g. for use as a key
+     */
+    @Override
+    public String toString() {
+        char[] digits = new char[NUM_CELLS];
+        for(int cell = 0; cell < NUM_CELLS; cell++) {
+            digits[cell] = (char) ('0' + values[cell]);
+        }
+        return new String(digits);
+    }
+
+    /**
+     * @return Every permutation of 0 to n - 1
+     */
+    private static int[][] permutations(int n) {
+        if(n == 1) {
+            return new int[][] {{0}};
+        }
+        int[][] smaller = permutations(n - 1);
+        int[][] perms = new int[smaller.length * n][];
+        int count = 0;
+        for(int[] perm : smaller) {
+            for(int pos = 0; pos < n; pos++) {
+                int[] longer = new int[n];
+                for(int i = 0, j = 0; i < n; i++) {
+                    longer[i] = i == pos ? n - 1 : perm[j++];
+                }
+                perms[count++] = longer;
+            }
+        }
+        return perms;
+    }
+
+    /**
+     * A partial transform, with the rows chosen so far.
+     */
+    private static final class State {
+        final boolean transposed;
+        final int colOrder; // index into LINE_ORDERS
+        final int[] rows = new int[SIZE];
+        final int[] labels = new int[SIZE + 1];
+        int numRows;
+        int nextLabel = 1;
+
+        State(boolean transposed, int colOrder) {
+            this.transposed = transposed;
+            this.colOrder = colOrder;
+        }
+
+        /**
+         * @return true if the line can be the row at depth, keeping bands together
+         */
+        boolean canAdd(int row, int depth) {
+            for(int i = 0; i < numRows; i++) {
+                if(rows[i] == row) return false;
+            }
+            if(depth % BOX_SIZE == 0) {
+                // start of a band, any line of an unused band
+                for(int i = 0; i < numRows; i++) {
+                    if(rows[i] / BOX_SIZE == row / BOX_SIZE) return false;
+                }
+                return true;
+            }
+            return row / BOX_SIZE == rows[depth - 1] / BOX_SIZE;
+        }
+
+        /**
+         * @return Copy of this state with the line added as the next row
+         */
+        State extend(int[] values, int row) {
+            State state = new State(transposed, colOrder);
+            System.arraycopy(rows, 0, state.rows, 0, numRows);
+            System.arraycopy(labels, 0, state.labels, 0, labels.length);
+            state.numRows = numRows;
+            state.rows[state.numRows++] = row;
+            int[] order = LINE_ORDERS[colOrder];
+            state.nextLabel = nextLabel;
+            for(int c = 0; c < SIZE; c++) {
+                int value = values[source(transposed, row, order[c])];
+                if(value != 0 && state.labels[value] == 0) {
+                    state.labels[value] = state.nextLabel++;
+                }
+            }
+            return state;
+        }
+    }
+}
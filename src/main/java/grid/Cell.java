@@ -3,162 +3,96 @@ package grid;
 import java.util.ArrayList;
 
 /**
- * Contains possible values for the cell in the format of a boolean array.
- * Each index represents a possible value for the cell if set to true.
- * The 0 index is set to true if the cell is unsolved, and false if it
- * is solved.
+ * View of a single cell in a Grid.
+ * Possible values for the cell are stored by the grid in the format of a
+ * bitmask. Each bit represents a possible value for the cell if set.
+ * Bit 0 is set if the cell is unsolved, and cleared if it is solved.
+ * See {@link Candidates} for helpers that operate on the mask.
  */
 public class Cell {
-    private boolean[] candidates;
-    private Group row;
-    private Group col;
-    private Group box;
-    private Grid grid;
+    private final Grid grid;
+    private final int index;
 
-    public Cell(Grid grid, int value) {
+    Cell(Grid grid, int index) {
         this.grid = grid;
-        candidates = new boolean[10];
-        if(value == 0) {
-            // set all numbers to possible candidates
-            for (int i = 0; i <= 9; i++) {
-                candidates[i] = true;
-            }
-        }else {
-            // set all candidates to false bar the solution
-            for(int index = 0; index <= 9; index++) {
-                candidates[index] = (index == value);
-            }
-            grid.incrementNumSolved();
-        }
+        this.index = index;
     }
 
     public boolean isSolved() {
-        return !candidates[0];
+        return grid.isSolved(index);
     }
 
     /**
-     * Remove candidate from list of candidates (stored in field)
+     * Remove candidate from list of candidates
      * @param candidate: candidate to remove
+     * @return false if the cell is left without candidates, see {@link Grid#eliminateCandidate(int, int)}
      */
-    public void eliminateCandidate(int candidate) {
-        if(isSolved()) {
-            throw new IllegalStateException("Cannot edit candidates of solved cell");
-        }else if(candidate < 1 || 9 < candidate) {
-            throw new IllegalArgumentException("Candidate must be a number between 1 and 9, candidate was "+candidate);
-        }
-        candidates[candidate] = false;
-        if(getNumCandidates() == 0) {
-            grid.setSolvingFailed();
-            throw new IllegalStateException("All candidates eliminated.");
-        }
+    public boolean eliminateCandidate(int candidate) {
+        return grid.eliminateCandidate(index, candidate);
     }
 
-    public void setSolution(int value) {
-        if(isSolved()) {
-            throw new IllegalStateException("Cannot change cell's solution once solved.");
-        }else if(value < 1 || 9 < value) {
-            throw new IllegalArgumentException("Solution must be a number between 1 and 9, value was "+value);
-        }
-        for(int index = 0; index <= 9; index++) {
-            // set all candidates to false bar the solution
-            candidates[index] = (index == value);
-        }
-        eliminateSolutionFromGroups();
-        grid.incrementNumSolved();
+    /**
+     * @return false if the solution contradicts the grid, see {@link Grid#setSolution(int, int)}
+     */
+    public boolean setSolution(int value) {
+        return grid.setSolution(index, value);
     }
 
     /**
      * Removes solution as candidate from this cell's row, column, and box
+     * @return false if a peer is left without candidates
      */
-    public void eliminateSolutionFromGroups() {
-        int solution = getSolution();
-        if(solution != 0) {
-            row.eliminateCandidate(solution);
-            col.eliminateCandidate(solution);
-            box.eliminateCandidate(solution);
-        }
+    public boolean eliminateSolutionFromGroups() {
+        return grid.eliminateSolutionFromPeers(index);
     }
 
     /**
      * @return Solution if solved, 0 if not.
      */
     public int getSolution() {
-        for(int i = 0; i <= 9; i++) {
-            if(candidates[i]) {
-                return i;
-            }
-        }
-        throw new IllegalStateException("Cell cannot be solved with no candidates");
+        return grid.getSolution(index);
     }
 
     public int getNumCandidates() {
-        if(isSolved()) {
-            return 1;
-        }
-        int count = 0;
-        for(int i = 1; i <= 9; i++) {
-            if(candidates[i]) {
-                count++;
-            }
-        }
-        return count;
+        return Candidates.count(grid.getCandidateMask(index));
+    }
+
+    public boolean hasCandidate(int candidate) {
+        return Candidates.contains(grid.getCandidateMask(index), candidate);
     }
 
     /**
+     * @return Bitmask of candidates, see {@link Candidates}
+     */
+    public int getCandidateMask() {
+        return grid.getCandidateMask(index);
+    }
+
+    /**
+     * Prefer {@link #getCandidateMask()} in loops, as this allocates a new list.
      * @return ArrayList of candidates
      */
     public ArrayList<Integer> getCandidates() {
         ArrayList<Integer> candidateList = new ArrayList<>();
-        for(int i = 1; i <= 9; i++) {
-            if(candidates[i]){
-                candidateList.add(i);
-            }
+        for(int m = getCandidateMask(); m != 0; m = Candidates.withoutFirst(m)) {
+            candidateList.add(Candidates.first(m));
         }
         return candidateList;
     }
 
-    protected void setRow(Group row) {
-        if(this.row != null) {
-            throw new IllegalStateException("Row already set");
-        }
-        this.row = row;
-    }
-
-    protected void setCol(Group col) {
-        if(this.col != null) {
-            throw new IllegalStateException("Column already set");
-        }
-        this.col = col;
-    }
-
-    protected void setBox(Group box) {
-        if(this.box != null) {
-            throw new IllegalStateException("Box already set");
-        }
-        this.box = box;
-    }
+    /**
+     * @return Index of this cell in the grid, see {@link Layout}
+     */
+    public int getIndex() { return index; }
 
-    public Group getRow() { return row; }
+    public Group getRow() { return grid.getRows()[grid.getLayout().row(index)]; }
 
-    public Group getCol() { return col; }
+    public Group getCol() { return grid.getCols()[grid.getLayout().col(index)]; }
 
-    public Group getBox() { return box; }
+    public Group getBox() { return grid.getBoxes()[grid.getLayout().box(index)]; }
 
     @Override
     public String toString() {
-        StringBuilder out = new StringBuilder();
-        out.append('[');
-        for(int index = 1; index <= 9; index++) {
-            if(candidates[index]) {
-                out.append(index);
-                out.append(',');
-            }
-        }
-        // delete last comma
-        if(out.length() > 1) {
-            out.deleteCharAt(out.length() - 1);
-        }
-        out.append(']');
-        return out.toString();
+        return Candidates.toString(getCandidateMask());
     }
 }
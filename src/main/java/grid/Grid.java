@@ -1,90 +1,485 @@
 package grid;
 
+import java.util.Arrays;
+
+/**
+ * Stores the candidates of every cell in a single array of bitmasks
+ * (see {@link Candidates}), indexed as described by the grid's {@link Layout}.
+ * Grids can be any size with a Layout, e.g. 4x4, 9x9, 16x16, or 25x25.
+ * Cell and Group objects are views over this array, and are only created
+ * when first requested.
+ *
+ * Changes are recorded so that solving techniques only need to look at
+ * the parts of the grid that changed: cells left with a single candidate
+ * are queued (see {@link #pollSingle()}), and units containing a changed
+ * cell are marked dirty (see {@link #takeDirtyUnits(int)}).
+ *
+ * Contradictions are not exceptional while solving, as every wrong guess of
+ * a search ends in one. When a cell is left without candidates, the grid is
+ * marked as failed (see {@link #getSolvingFailed()}), and the methods which
+ * change candidates return false so that callers can stop early. Exceptions
+ * are only thrown for misuse, such as changing a solved cell.
+ *
+ * Hypotheses can be explored and undone cheaply with snapshots (see
+ * {@link #pushSnapshot()}). While a snapshot is open, the previous candidates
+ * of each changed cell are logged to a trail, so rolling back only touches the
+ * cells which changed, and nothing is allocated once the trail has grown.
+ */
 public class Grid {
-    private final String name;
-    private Cell[][] cells; // 9x9 array of grid cells
+    /**
+     * Number of independent sets of dirty units. Each technique which only
+     * searches changed units uses its own channel, so that taking the dirty
+     * units for one technique doesn't hide them from another.
+     */
+    public static final int NUM_DIRTY_CHANNELS = 4;
+
+    private String name;
+    private final Layout layout;
+    private final int numCells;
+    private final int[] candidates; // candidate bitmask of each cell
+    private int numSolved;
+    private boolean solvingFailed;
+    private final int[] singles; // stack of unsolved cells with one candidate left
+    private int numSingles;
+    private final int unitWords; // number of ints in a set of units
+    private final int[] dirtyUnits; // bitmask of units changed since last taken, unitWords per channel
+    private final int[][] takenUnits; // dirty units last taken from each channel
+    private long numEliminated; // candidates eliminated since the grid was loaded
+    private long[] positions; // bitboard of each candidate, created lazily
+    // undo log of (cell, previous candidates) pairs, recorded while a snapshot is open
+    private int[] trail = new int[64];
+    private int trailSize;
+    // stack of snapshots: trail size, numSolved, failed flag, dirty units, then queued singles and their count
+    private int[] snapshots = new int[64];
+    private int snapshotsSize;
+    private int numSnapshots;
+    // views, created lazily
+    private Cell[][] cells; // size x size array of grid cells
     private Group[] rows;
     private Group[] cols;
     private Group[] boxes;
     private Group[][] allGroups; // list containing rows, cols, boxes
-    private int numSolved;
-    private boolean solvingFailed;
 
+    /**
+     * @param name: Name of grid
+     * @param values: Values of each row, 0 if unsolved. The number of rows sets the grid's size.
+     */
     public Grid(String name, int[][] values) {
+        this(name, Layout.ofSize(values.length), flatten(values));
+    }
+
+    /**
+     * @param name: Name of grid
+     * @param values: Values of all cells in row-major order, 0 if unsolved.
+     *              The number of values sets the grid's size, e.g. 81 for 9x9.
+     */
+    public Grid(String name, int[] values) {
+        this(name, Layout.ofNumCells(values.length), values);
+    }
+
+    /**
+     * Grids with a digit repeated in a row, column, or box are marked as
+     * failed straight away, see {@link GridValidator}.
+     * @param name: Name of grid
+     * @param layout: Shape of the grid
+     * @param values: Values of all cells in row-major order, 0 if unsolved
+     * @throws IllegalArgumentException: If a value is out of range
+     */
+    public Grid(String name, Layout layout, int[] values) {
+        this(name, layout, values, false);
+    }
+
+    /**
+     * @param name: Name of grid
+     * @param layout: Shape of the grid
+     * @param values: Values of all cells in row-major order, 0 if unsolved
+     * @param validated: true if the values have already passed
+     *                 {@link GridValidator#validate(Layout, int[])}, so they
+     *                 are not checked again, see load()
+     */
+    public Grid(String name, Layout layout, int[] values, boolean validated) {
+        this.layout = layout;
+        numCells = layout.getNumCells();
+        candidates = new int[numCells];
+        singles = new int[numCells];
+        unitWords = (layout.getNumUnits() + 31) / 32;
+        dirtyUnits = new int[NUM_DIRTY_CHANNELS * unitWords];
+        takenUnits = new int[NUM_DIRTY_CHANNELS][unitWords];
+        load(name, values, validated);
+    }
+
+    /**
+     * Replaces the grid with a new puzzle of the same size, as if it had just
+     * been created, so that one grid can be reused for many puzzles without
+     * allocating. Open snapshots are discarded. Cell and Group views stay valid,
+     * and show the new puzzle.
+     * @param name: Name of grid
+     * @param values: Values of all cells in row-major order, 0 if unsolved
+     * @throws IllegalArgumentException: If a value is out of range, or there are
+     *         not getNumCells() values
+     */
+    public final void load(String name, int[] values) {
+        load(name, values, false);
+    }
+
+    /**
+     * Loads a puzzle like load(String, int[]), skipping the checks of the
+     * values if a reader has already made them.
+     * @param name: Name of grid
+     * @param values: Values of all cells in row-major order, 0 if unsolved
+     * @param validated: true if the values have already passed
+     *                 {@link GridValidator#validate(Layout, int[])}. Values
+     *                 which would fail it leave the grid in an undefined state.
+     */
+    public final void load(String name, int[] values, boolean validated) {
+        if(!validated) {
+            String error = GridValidator.findInvalidValue(layout, values);
+            if(error != null) {
+                throw new IllegalArgumentException(error);
+            }
+        }
         this.name = name;
         numSolved = 0;
-        generateCells(values);
-        generateGroups();
-        initialElimination();
         solvingFailed = false;
+        numSingles = 0;
+        numEliminated = 0;
+        trailSize = 0;
+        snapshotsSize = 0;
+        numSnapshots = 0;
+        markAllDirty();
+        int all = Candidates.UNSOLVED | layout.getAllCandidates();
+        for(int cell = 0; cell < numCells; cell++) {
+            int value = values[cell];
+            if(value == 0) {
+                candidates[cell] = all;
+            }else {
+                candidates[cell] = Candidates.of(value);
+                numSolved++;
+            }
+        }
+        if(!validated && GridValidator.findRepeatedValue(layout, values) != null) {
+            setSolvingFailed();
+        }else {
+            initialElimination();
+        }
+    }
+
+    private static int[] flatten(int[][] values) {
+        int size = values.length;
+        int[] flat = new int[size * size];
+        for(int row = 0; row < size; row++) {
+            System.arraycopy(values[row], 0, flat, row * size, size);
+        }
+        return flat;
     }
 
     /**
-     * Generates Cell objects from 2D array of integer values
-     * @param values: Integer values of Cell objects
+     * Eliminates solved cells' values from their peers' candidates.
+     * After this initial elimination, the solution's value is eliminated
+     * from its peers whenever a solution is found. If the givens leave a
+     * cell without candidates, the grid is marked as failed.
      */
-    private void generateCells(int[][] values) {
-        cells = new Cell[9][9];
-        // convert integer array into array of Cells
-        for(int row = 0; row < 9; row ++) {
-            for(int col = 0; col < 9; col++) {
-                cells[row][col] = new Cell(this, values[row][col]);
+    private void initialElimination() {
+        for(int cell = 0; cell < numCells; cell++) {
+            if(!eliminateSolutionFromPeers(cell)) {
+                return;
             }
         }
     }
 
     /**
-     * Generates row, column, and box groups from the cells field.
-     * These groups are stored in arrays in the rows, cols, and boxes fields.
+     * @return Shape of the grid, and the index tables of its cells and units
      */
-    private void generateGroups() {
-        if(cells == null) {
-            throw new IllegalStateException("Must call generateCells() before calling this method.");
-        }
-        rows = new Group[9];
-        for(int i = 0; i < 9; i++) {
-            rows[i] = new Group(Group.Type.ROW, cells[i]);
-        }
-        cols = new Group[9];
-        for(int col = 0; col < 9; col++) {
-            // build new array to hold column
-            Cell[] colGroup = new Cell[9];
-            for(int row = 0; row < 9; row++) {
-                colGroup[row] = cells[row][col];
+    public Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return Number of rows, columns, boxes, and candidates
+     */
+    public int getSize() {
+        return layout.getSize();
+    }
+
+    public int getNumCells() {
+        return numCells;
+    }
+
+    /**
+     * @param cell: Index of cell
+     * @return Bitmask of the cell's candidates
+     */
+    public int getCandidateMask(int cell) {
+        return candidates[cell];
+    }
+
+    /**
+     * @return Bitmask of the candidates of every cell, indexed by cell. This is
+     *         the grid's own array, for scans over the whole grid, so it must
+     *         not be kept or modified.
+     */
+    public int[] getCandidateMasks() {
+        return candidates;
+    }
+
+    public boolean isSolved(int cell) {
+        return (candidates[cell] & Candidates.UNSOLVED) == 0;
+    }
+
+    /**
+     * @return Solution of cell if solved, 0 if not.
+     */
+    public int getSolution(int cell) {
+        return isSolved(cell) ? Candidates.first(candidates[cell]) : 0;
+    }
+
+    /**
+     * Remove candidate from the cell's candidates.
+     * @param cell: Index of cell
+     * @param candidate: candidate to remove
+     * @return false if the cell is left without candidates, in which case
+     *         the grid is marked as failed
+     */
+    public boolean eliminateCandidate(int cell, int candidate) {
+        if(isSolved(cell)) {
+            throw new IllegalStateException("Cannot edit candidates of solved cell");
+        }else if(candidate < 1 || layout.getSize() < candidate) {
+            throw new IllegalArgumentException("Candidate must be a number between 1 and "+layout.getSize()
+                    +", candidate was "+candidate);
+        }
+        int before = candidates[cell];
+        int after = before & ~Candidates.of(candidate);
+        if(after == before) {
+            return true;
+        }
+        record(cell, before);
+        candidates[cell] = after;
+        numEliminated++;
+        int remaining = after & Candidates.ALL;
+        if(remaining == 0) {
+            setSolvingFailed();
+            return false;
+        }
+        if((remaining & (remaining - 1)) == 0) {
+            singles[numSingles++] = cell;
+        }
+        markDirty(cell);
+        return true;
+    }
+
+    /**
+     * Solves the cell, and eliminates the value from its peers.
+     * @param cell: Index of cell
+     * @param value: Solution of the cell
+     * @return false if the value is not a candidate of the cell, or a peer is
+     *         left without candidates, in which case the grid is marked as failed
+     */
+    public boolean setSolution(int cell, int value) {
+        if(isSolved(cell)) {
+            throw new IllegalStateException("Cannot change cell's solution once solved.");
+        }else if(value < 1 || layout.getSize() < value) {
+            throw new IllegalArgumentException("Solution must be a number between 1 and "+layout.getSize()
+                    +", value was "+value);
+        }
+        if(!Candidates.contains(candidates[cell], value)) {
+            setSolvingFailed();
+            return false;
+        }
+        // clear all candidates bar the solution
+        record(cell, candidates[cell]);
+        candidates[cell] = Candidates.of(value);
+        numSolved++;
+        markDirty(cell);
+        return eliminateSolutionFromPeers(cell);
+    }
+
+    /**
+     * Takes the next cell from the queue of cells which have been reduced to a
+     * single candidate. The cell may have been solved since it was queued.
+     * @return Index of cell, or -1 if the queue is empty
+     */
+    public int pollSingle() {
+        return numSingles == 0 ? -1 : singles[--numSingles];
+    }
+
+    private void markDirty(int cell) {
+        for(int unit : layout.getCellUnits(cell)) {
+            int word = unit >>> 5;
+            int bit = 1 << unit;
+            for(int channel = 0; channel < NUM_DIRTY_CHANNELS; channel++) {
+                dirtyUnits[channel * unitWords + word] |= bit;
+            }
+        }
+    }
+
+    private void markAllDirty() {
+        for(int channel = 0; channel < NUM_DIRTY_CHANNELS; channel++) {
+            for(int unit = 0; unit < layout.getNumUnits(); unit++) {
+                dirtyUnits[channel * unitWords + (unit >>> 5)] |= 1 << unit;
+            }
+        }
+    }
+
+    /**
+     * Returns the units which contain a cell that has been solved or had a
+     * candidate eliminated since this method was last called with the same
+     * channel, and clears them. Every unit is dirty when the grid is created.
+     * Units can be iterated without allocating:
+     * <pre>
+     * int[] dirty = grid.takeDirtyUnits(channel);
+     * for(int word = 0; word < dirty.length; word++) {
+     *     for(int bits = dirty[word]; bits != 0; bits &= bits - 1) {
+     *         int unit = (word << 5) + Integer.numberOfTrailingZeros(bits);
+     *     }
+     * }
+     * </pre>
+     * @param channel: Set of dirty units to take, from 0 to NUM_DIRTY_CHANNELS - 1
+     * @return Bitmask of units as ints, bit n % 32 of int n / 32 set for unit n
+     *         (see {@link Layout}). The array is reused by later calls with the
+     *         same channel, so it must not be kept or modified.
+     */
+    public int[] takeDirtyUnits(int channel) {
+        int[] taken = takenUnits[channel];
+        System.arraycopy(dirtyUnits, channel * unitWords, taken, 0, unitWords);
+        Arrays.fill(dirtyUnits, channel * unitWords, (channel + 1) * unitWords, 0);
+        return taken;
+    }
+
+    /**
+     * Finds the unsolved cells which contain each candidate.
+     * @return Array holding a bitboard for each candidate (see {@link Bitboard}),
+     *         candidate c at offset c * getLayout().getBitboardLength(). The array is reused by later calls, so
+     *         it must not be kept or modified.
+     */
+    public long[] getCandidatePositions() {
+        int length = layout.getBitboardLength();
+        if(positions == null) {
+            positions = new long[(layout.getSize() + 1) * length];
+        }else {
+            Arrays.fill(positions, 0);
+        }
+        for(int cell = 0; cell < numCells; cell++) {
+            int mask = candidates[cell];
+            if((mask & Candidates.UNSOLVED) == 0) continue;
+            for(int m = mask & Candidates.ALL; m != 0; m = Candidates.withoutFirst(m)) {
+                Bitboard.add(positions, Candidates.first(m) * length, cell);
             }
-            cols[col] = new Group(Group.Type.COL, colGroup);
-        }
-        boxes = new Group[9];
-        int index = 0;
-        for(int col = 0; col < 9; col += 3) {
-            for(int row = 0; row < 9; row += 3) {
-                Cell[] box = new Cell[9];
-                int boxIndex = 0;
-                for(int colRow = 0; colRow < 3; colRow++) {
-                    for(int boxRow = 0; boxRow < 3; boxRow++) {
-                        box[boxIndex] = cells[row+boxRow][col+colRow];
-                        boxIndex++;
-                    }
+        }
+        return positions;
+    }
+
+    /**
+     * Logs the candidates of a cell before it is changed, if a snapshot is open.
+     */
+    private void record(int cell, int before) {
+        if(numSnapshots == 0) {
+            return;
+        }
+        if(trailSize + 2 > trail.length) {
+            trail = Arrays.copyOf(trail, trail.length * 2);
+        }
+        trail[trailSize++] = cell;
+        trail[trailSize++] = before;
+    }
+
+    /**
+     * Saves a snapshot of the grid's candidates and solving progress, which
+     * rollback() returns to. Snapshots nest: each one is rolled back to or
+     * popped independently, most recent first. Only the grid's counters and
+     * queued singles are copied, and each cell is logged as it changes.
+     */
+    public void pushSnapshot() {
+        int size = 3 + dirtyUnits.length + numSingles + 1;
+        if(snapshotsSize + size > snapshots.length) {
+            snapshots = Arrays.copyOf(snapshots, Math.max(snapshots.length * 2, snapshotsSize + size));
+        }
+        snapshots[snapshotsSize++] = trailSize;
+        snapshots[snapshotsSize++] = numSolved;
+        snapshots[snapshotsSize++] = solvingFailed ? 1 : 0;
+        System.arraycopy(dirtyUnits, 0, snapshots, snapshotsSize, dirtyUnits.length);
+        snapshotsSize += dirtyUnits.length;
+        System.arraycopy(singles, 0, snapshots, snapshotsSize, numSingles);
+        snapshotsSize += numSingles;
+        snapshots[snapshotsSize++] = numSingles;
+        numSnapshots++;
+    }
+
+    /**
+     * Returns the grid to the most recent snapshot, undoing every change
+     * since it was pushed in the reverse order they were made. The snapshot
+     * stays open, so it can be rolled back to again, e.g. after each guess in
+     * a search. The failed flag is restored too, so it stays set if the grid
+     * had already failed when the snapshot was pushed.
+     * @throws IllegalStateException: If no snapshot is open
+     */
+    public void rollback() {
+        if(numSnapshots == 0) {
+            throw new IllegalStateException("No snapshot to roll back to");
+        }
+        int pos = snapshotsSize - 1;
+        numSingles = snapshots[pos];
+        pos -= numSingles;
+        System.arraycopy(snapshots, pos, singles, 0, numSingles);
+        pos -= dirtyUnits.length;
+        System.arraycopy(snapshots, pos, dirtyUnits, 0, dirtyUnits.length);
+        solvingFailed = snapshots[--pos] != 0;
+        numSolved = snapshots[--pos];
+        int mark = snapshots[--pos];
+        while(trailSize > mark) {
+            int before = trail[--trailSize];
+            candidates[trail[--trailSize]] = before;
+        }
+    }
+
+    /**
+     * Closes the most recent snapshot, keeping the changes made since it was
+     * pushed. They are undone if an earlier snapshot is rolled back to.
+     * @throws IllegalStateException: If no snapshot is open
+     */
+    public void popSnapshot() {
+        if(numSnapshots == 0) {
+            throw new IllegalStateException("No snapshot to pop");
+        }
+        int numQueued = snapshots[snapshotsSize - 1];
+        snapshotsSize -= 4 + dirtyUnits.length + numQueued;
+        numSnapshots--;
+        if(numSnapshots == 0) {
+            trailSize = 0;
+        }
+    }
+
+    /**
+     * Removes the cell's solution as a candidate from its row, column, and box.
+     * Does nothing if the cell is unsolved.
+     * @return false if a peer is left without candidates. The remaining peers
+     *         are not changed.
+     */
+    public boolean eliminateSolutionFromPeers(int cell) {
+        int solution = getSolution(cell);
+        if(solution != 0) {
+            for(int peer : layout.getPeers(cell)) {
+                if(!isSolved(peer) && !eliminateCandidate(peer, solution)) {
+                    return false;
                 }
-                boxes[index] = new Group(Group.Type.BOX, box);
-                index++;
             }
         }
-        allGroups = new Group[][]{rows, cols, boxes};
+        return true;
     }
 
     /**
-     * To be called after groups are created. Calls eliminateSolutionFromGroups()
-     * on every cell, which eliminates solved cells' values from their groups'
-     * candidates. After this initial elimination, eliminateSolutionFromGroups()
-     * is called whenever a solution is found.
+     * Eliminates candidate from every unsolved cell in unit.
+     * @param unit: Index of unit, see {@link Layout}
+     * @param candidate: candidate to eliminate
+     * @return false if a cell is left without candidates. The remaining cells
+     *         are not changed.
      */
-    private void initialElimination() {
-        for(Cell[] row : cells) {
-            for(Cell cell : row) {
-                cell.eliminateSolutionFromGroups();
+    public boolean eliminateFromUnit(int unit, int candidate) {
+        for(int cell : layout.getUnitCells(unit)) {
+            if(!isSolved(cell) && !eliminateCandidate(cell, candidate)) {
+                return false;
             }
         }
+        return true;
     }
 
     @Override
@@ -92,9 +487,9 @@ public class Grid {
         StringBuilder out = new StringBuilder();
         out.append(name);
         out.append('\n');
-        for(int row = 0; row < 9; row ++) {
-            for(int col = 0; col < 9; col++) {
-                out.append(cells[row][col]);
+        for(int row = 0; row < layout.getSize(); row ++) {
+            for(int col = 0; col < layout.getSize(); col++) {
+                out.append(Candidates.toString(candidates[layout.index(row, col)]));
             }
             out.append("\n");
         }
@@ -102,22 +497,25 @@ public class Grid {
     }
 
     public boolean isSolved() {
-        return numSolved == 81;
-    }
-
-    public void incrementNumSolved() {
-        if(numSolved >= 81) {
-            throw new IllegalStateException("Can't solve more than 81 cells");
-        }
-        numSolved++;
+        return numSolved == numCells;
     }
 
     public int getNumSolved() { return this.numSolved; }
 
+    /**
+     * @return Number of candidates eliminated since the grid was created or loaded.
+     * This is not part of the saved state, so it includes eliminations which were undone.
+     */
+    public long getNumEliminated() { return this.numEliminated; }
+
     protected void setSolvingFailed() {
         this.solvingFailed = true;
     }
 
+    /**
+     * @return true if a cell has been left without candidates, so the grid
+     *         has no solution from its current state
+     */
     public boolean getSolvingFailed() {
         return this.solvingFailed;
     }
@@ -126,17 +524,58 @@ public class Grid {
         return name;
     }
 
+    /**
+     * @return View of the cell at index
+     */
+    public Cell getCell(int cell) {
+        return getCells()[layout.row(cell)][layout.col(cell)];
+    }
+
     public Cell[][] getCells() {
+        if(cells == null) {
+            generateCells();
+        }
         return cells;
     }
 
-    public Group[] getBoxes() { return boxes; }
+    public Group[] getBoxes() { return getAllGroups()[2]; }
 
-    public Group[] getCols() { return cols; }
+    public Group[] getCols() { return getAllGroups()[1]; }
 
-    public Group[] getRows() { return rows; }
+    public Group[] getRows() { return getAllGroups()[0]; }
 
     public Group[][] getAllGroups() {
+        if(allGroups == null) {
+            generateGroups();
+        }
         return allGroups;
     }
+
+    /**
+     * Generates Cell views of each index in the candidates array.
+     */
+    private void generateCells() {
+        cells = new Cell[layout.getSize()][layout.getSize()];
+        for(int row = 0; row < layout.getSize(); row++) {
+            for(int col = 0; col < layout.getSize(); col++) {
+                cells[row][col] = new Cell(this, layout.index(row, col));
+            }
+        }
+    }
+
+    /**
+     * Generates row, column, and box Group views from the unit tables of the layout.
+     */
+    private void generateGroups() {
+        int size = layout.getSize();
+        rows = new Group[size];
+        cols = new Group[size];
+        boxes = new Group[size];
+        for(int i = 0; i < size; i++) {
+            rows[i] = new Group(this, Group.Type.ROW, layout.getRowOffset() + i);
+            cols[i] = new Group(this, Group.Type.COL, layout.getColOffset() + i);
+            boxes[i] = new Group(this, Group.Type.BOX, layout.getBoxOffset() + i);
+        }
+        allGroups = new Group[][]{rows, cols, boxes};
+    }
 }
@@ -0,0 +1,87 @@
+package grid;
+
+/**
+ * Checks the values of a grid before it is built, so that malformed input is
+ * rejected before any time is spent solving it. Values are checked on the raw
+ * array in row-major order (see {@link Layout}), with a bitmask of the digits
+ * seen in each row, column, and box, and nothing is allocated unless a problem
+ * is found. Problems are described with 1-based row and column numbers, for
+ * reporting back to whoever supplied the grid.
+ */
+public final class GridValidator {
+
+    private GridValidator() {}
+
+    /**
+     * @param layout: Shape of the grid
+     * @param values: Values of all cells in row-major order, 0 if unsolved
+     * @return Description of the first problem found, or null if the values
+     *         are in range and no digit is repeated in a row, column, or box
+     */
+    public static String validate(Layout layout, int[] values) {
+        String error = findInvalidValue(layout, values);
+        return error != null ? error : findRepeatedValue(layout, values);
+    }
+
+    /**
+     * @return Description of the first value which is not between 0 and the
+     *         grid's size, or of a wrong number of values, or null if there is none
+     */
+    public static String findInvalidValue(Layout layout, int[] values) {
+        if(values.length != layout.getNumCells()) {
+            return "A " + layout + " grid has " + layout.getNumCells() + " cells, not " + values.length;
+        }
+        for(int cell = 0; cell < values.length; cell++) {
+            int value = values[cell];
+            if(value < 0 || layout.getSize() < value) {
+                return "Value " + value + " at " + position(layout, cell) + " is not between 0 and " + layout.getSize();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The values must be in range, see findInvalidValue().
+     * @return Description of the first digit found twice in a row, column, or
+     *         box, checking rows first, or null if there is none
+     */
+    public static String findRepeatedValue(Layout layout, int[] values) {
+        for(int unit = 0; unit < layout.getNumUnits(); unit++) {
+            int seen = 0; // digits given in the unit
+            for(int cell : layout.getUnitCells(unit)) {
+                if(values[cell] == 0) continue;
+                int digit = Candidates.of(values[cell]);
+                if((seen & digit) != 0) {
+                    return "Value " + values[cell] + " at " + position(layout, cell) + " is repeated in its "
+                            + unitType(layout, unit) + " at "
+                            + position(layout, firstCell(layout, values, unit, values[cell]));
+                }
+                seen |= digit;
+            }
+        }
+        return null;
+    }
+
+    private static String unitType(Layout layout, int unit) {
+        if(unit < layout.getColOffset()) {
+            return "row";
+        }
+        return unit < layout.getBoxOffset() ? "column" : "box";
+    }
+
+    /**
+     * @return Index of the first cell of the unit with the value
+     */
+    private static int firstCell(Layout layout, int[] values, int unit, int value) {
+        for(int cell : layout.getUnitCells(unit)) {
+            if(values[cell] == value) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    private static String position(Layout layout, int cell) {
+        return "row " + (layout.row(cell) + 1) + ", column " + (layout.col(cell) + 1);
+    }
+}
@@ -1,54 +1,48 @@
 package grid;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 
 /**
  * Represents the three sudoku groups: row, column, and box.
- * Contains methods for determining properties of a given group.
+ * A view over one of the units of a Grid, see {@link Layout}.
  */
 public class Group {
 
     public enum Type {ROW, COL, BOX}
 
+    private final Grid grid;
     private final Type type;
+    private final int unit;
     private final ArrayList<Cell> cells;
 
-    Group(Type type, Cell[] cells) {
+    Group(Grid grid, Type type, int unit) {
+        this.grid = grid;
         this.type = type;
-        this.cells = new ArrayList<>(Arrays.asList(cells));
-        addGroupToCells();
+        this.unit = unit;
+        this.cells = new ArrayList<>(grid.getSize());
+        for(int cell : grid.getLayout().getUnitCells(unit)) {
+            cells.add(grid.getCell(cell));
+        }
     }
 
     /**
-     * Loops through each and sets this Group as its row, column, or box
+     * Eliminates candidate from every unsolved cell in group.
+     * @param candidate: candidate to eliminate
+     * @return false if a cell is left without candidates
      */
-    private void addGroupToCells() {
-        if(type == Type.ROW) {
-            for (Cell cell : cells) {
-                cell.setRow(this);
-            }
-        }else if(type == Type.COL) {
-            for (Cell cell : cells) {
-                cell.setCol(this);
-            }
-        }else if(type == Type.BOX) {
-            for (Cell cell : cells) {
-                cell.setBox(this);
-            }
-        }
+    public boolean eliminateCandidate(int candidate) {
+        return grid.eliminateFromUnit(unit, candidate);
+    }
+
+    public Type getType() {
+        return type;
     }
 
     /**
-     * Eliminates candidate from every unsolved cell in group.
-     * @param candidate: candidate to eliminate
+     * @return Index of this group's unit, see {@link Layout}
      */
-    public void eliminateCandidate(int candidate) {
-        for(Cell cell : cells) {
-            if(!cell.isSolved()) {
-                cell.eliminateCandidate(candidate);
-            }
-        }
+    public int getUnit() {
+        return unit;
     }
 
     public ArrayList<Cell> getCells() {
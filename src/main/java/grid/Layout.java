@@ -0,0 +1,315 @@
+package grid;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed index tables describing the shape of a grid made of
+ * boxSize x boxSize boxes, with size = boxSize * boxSize rows, columns, boxes, and
+ * candidates, e.g. a standard 9x9 grid has a box size of 3.
+ * Cells are indexed 0 to size * size - 1 in row-major order. Units (groups) are
+ * indexed 0 to 3 * size - 1: rows come first, then columns, then boxes. Boxes
+ * are numbered left to right, top to bottom, and their cells are listed in
+ * row-major order. There is one Layout for each box size, shared by every
+ * grid of that size, and the tables it returns must not be modified.
+ */
+public final class Layout {
+    public static final int MIN_BOX_SIZE = 2;
+    /** Largest box size, so that the candidates of a cell fit in an int, see {@link Candidates} */
+    public static final int MAX_BOX_SIZE = 5;
+    /** Largest set counted by {@link #getSubsets()} */
+    public static final int MAX_SUBSET_SIZE = 4;
+
+    private static final Layout[] LAYOUTS = new Layout[MAX_BOX_SIZE + 1];
+
+    static {
+        for(int boxSize = MIN_BOX_SIZE; boxSize <= MAX_BOX_SIZE; boxSize++) {
+            LAYOUTS[boxSize] = new Layout(boxSize);
+        }
+    }
+
+    /** Layout of a standard 9x9 grid */
+    public static final Layout STANDARD = of(3);
+
+    private final int size;
+    private final int boxSize;
+    private final int numCells;
+    private final int numUnits;
+    private final int rowOffset;
+    private final int colOffset;
+    private final int boxOffset;
+
+    private final int[][] unitCells; // cell indexes of each unit
+    private final int[][] cellUnits; // row, column, and box unit indexes of each cell
+    private final int[][] peers; // indexes of every other cell sharing a unit with each cell
+    // cells shared by each box and line, rows first, then columns
+    private final int[][] intersectionCells;
+    private final int[][] intersectionLineRest;
+    private final int[][] intersectionBoxRest;
+    private final int bitboardLength;
+    private final long[] peerBoards;
+    private final int[] subsets;
+
+    private Layout(int boxSize) {
+        this.boxSize = boxSize;
+        size = boxSize * boxSize;
+        numCells = size * size;
+        numUnits = 3 * size;
+        rowOffset = 0;
+        colOffset = size;
+        boxOffset = 2 * size;
+        unitCells = new int[numUnits][size];
+        cellUnits = new int[numCells][3];
+        peers = new int[numCells][3 * size - 2 * boxSize - 1];
+        for(int cell = 0; cell < numCells; cell++) {
+            int row = row(cell);
+            int col = col(cell);
+            int box = box(cell);
+            int boxPos = (row % boxSize) * boxSize + col % boxSize;
+            unitCells[rowOffset + row][col] = cell;
+            unitCells[colOffset + col][row] = cell;
+            unitCells[boxOffset + box][boxPos] = cell;
+            cellUnits[cell][0] = rowOffset + row;
+            cellUnits[cell][1] = colOffset + col;
+            cellUnits[cell][2] = boxOffset + box;
+        }
+        for(int cell = 0; cell < numCells; cell++) {
+            int count = 0;
+            for(int other = 0; other < numCells; other++) {
+                if(other != cell && (row(other) == row(cell) || col(other) == col(cell)
+                        || box(other) == box(cell))) {
+                    peers[cell][count++] = other;
+                }
+            }
+        }
+        int numIntersections = 2 * size * boxSize;
+        intersectionCells = new int[numIntersections][boxSize];
+        intersectionLineRest = new int[numIntersections][size - boxSize];
+        intersectionBoxRest = new int[numIntersections][size - boxSize];
+        int intersection = 0;
+        for(int lineOffset : new int[] {rowOffset, colOffset}) {
+            for(int box = 0; box < size; box++) {
+                int[] boxCells = unitCells[boxOffset + box];
+                for(int i = 0; i < boxSize; i++) {
+                    // first cell of the i-th row or column of the box
+                    int first = boxCells[lineOffset == rowOffset ? i * boxSize : i];
+                    int line = cellUnits[first][lineOffset == rowOffset ? 0 : 1];
+                    int shared = 0;
+                    int lineRest = 0;
+                    for(int cell : unitCells[line]) {
+                        if(box(cell) == box) {
+                            intersectionCells[intersection][shared++] = cell;
+                        }else {
+                            intersectionLineRest[intersection][lineRest++] = cell;
+                        }
+                    }
+                    int boxRest = 0;
+                    for(int cell : boxCells) {
+                        if(cellUnits[cell][lineOffset == rowOffset ? 0 : 1] != line) {
+                            intersectionBoxRest[intersection][boxRest++] = cell;
+                        }
+                    }
+                    intersection++;
+                }
+            }
+        }
+        bitboardLength = Bitboard.length(numCells);
+        peerBoards = new long[numCells * bitboardLength];
+        for(int cell = 0; cell < numCells; cell++) {
+            for(int peer : peers[cell]) {
+                Bitboard.add(peerBoards, cell * bitboardLength, peer);
+            }
+        }
+        subsets = findSubsets(size);
+    }
+
+    /**
+     * Lists the sets of 2 to MAX_SUBSET_SIZE numbers in order of size, each
+     * size in increasing order of mask.
+     */
+    private static int[] findSubsets(int size) {
+        int numSets = 0;
+        int[] sets = new int[16];
+        for(int count = 2; count <= Math.min(MAX_SUBSET_SIZE, size); count++) {
+            // Gosper's hack: step to the next larger mask with the same number of bits
+            for(int set = (1 << count) - 1; set < (1 << size); ) {
+                if(numSets == sets.length) {
+                    sets = Arrays.copyOf(sets, numSets * 2);
+                }
+                sets[numSets++] = set;
+                int lowest = set & -set;
+                int carried = set + lowest;
+                set = carried | (((set ^ carried) >>> 2) / lowest);
+            }
+        }
+        return Arrays.copyOf(sets, numSets);
+    }
+
+    /**
+     * @param boxSize: Number of rows and columns in each box, from MIN_BOX_SIZE to MAX_BOX_SIZE
+     * @return Layout of a grid with the given box size
+     */
+    public static Layout of(int boxSize) {
+        if(boxSize < MIN_BOX_SIZE || MAX_BOX_SIZE < boxSize) {
+            throw new IllegalArgumentException("Box size must be between " + MIN_BOX_SIZE + " and "
+                    + MAX_BOX_SIZE + ", was " + boxSize);
+        }
+        return LAYOUTS[boxSize];
+    }
+
+    /**
+     * @param size: Number of rows in the grid
+     * @return Layout of a grid with the given number of rows
+     */
+    public static Layout ofSize(int size) {
+        int boxSize = (int) Math.round(Math.sqrt(size));
+        if(boxSize * boxSize != size || boxSize < MIN_BOX_SIZE || MAX_BOX_SIZE < boxSize) {
+            throw new IllegalArgumentException("Grid cannot have " + size + " rows");
+        }
+        return LAYOUTS[boxSize];
+    }
+
+    /**
+     * @param numCells: Number of cells in the grid
+     * @return Layout of a grid with the given number of cells
+     */
+    public static Layout ofNumCells(int numCells) {
+        for(int boxSize = MIN_BOX_SIZE; boxSize <= MAX_BOX_SIZE; boxSize++) {
+            if(LAYOUTS[boxSize].numCells == numCells) {
+                return LAYOUTS[boxSize];
+            }
+        }
+        throw new IllegalArgumentException("Grid cannot have " + numCells + " cells");
+    }
+
+    /**
+     * @return Number of rows, columns, boxes, and candidates
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public int getBoxSize() {
+        return boxSize;
+    }
+
+    public int getNumCells() {
+        return numCells;
+    }
+
+    public int getNumUnits() {
+        return numUnits;
+    }
+
+    public int getRowOffset() {
+        return rowOffset;
+    }
+
+    public int getColOffset() {
+        return colOffset;
+    }
+
+    public int getBoxOffset() {
+        return boxOffset;
+    }
+
+    /**
+     * @return Mask of every candidate of a cell, see {@link Candidates}
+     */
+    public int getAllCandidates() {
+        return Candidates.all(size);
+    }
+
+    /**
+     * @return Cell indexes of the unit
+     */
+    public int[] getUnitCells(int unit) {
+        return unitCells[unit];
+    }
+
+    /**
+     * @return Row, column, and box unit indexes of the cell
+     */
+    public int[] getCellUnits(int cell) {
+        return cellUnits[cell];
+    }
+
+    /**
+     * @return Indexes of every other cell sharing a unit with the cell
+     */
+    public int[] getPeers(int cell) {
+        return peers[cell];
+    }
+
+    /**
+     * @return Number of intersections between a box and a row or column.
+     *         The intersections of rows come first, then columns.
+     */
+    public int getNumIntersections() {
+        return intersectionCells.length;
+    }
+
+    /**
+     * @return Cells shared by the intersection's box and line
+     */
+    public int[] getIntersectionCells(int intersection) {
+        return intersectionCells[intersection];
+    }
+
+    /**
+     * @return Cells of the intersection's line which are outside its box
+     */
+    public int[] getIntersectionLineRest(int intersection) {
+        return intersectionLineRest[intersection];
+    }
+
+    /**
+     * @return Cells of the intersection's box which are outside its line
+     */
+    public int[] getIntersectionBoxRest(int intersection) {
+        return intersectionBoxRest[intersection];
+    }
+
+    /**
+     * @return Number of longs in a bitboard of the grid's cells, see {@link Bitboard}
+     */
+    public int getBitboardLength() {
+        return bitboardLength;
+    }
+
+    /**
+     * @return Bitboard of the peers of each cell, cell n at offset n * getBitboardLength()
+     */
+    public long[] getPeerBoards() {
+        return peerBoards;
+    }
+
+    /**
+     * @return Every set of 2 to MAX_SUBSET_SIZE of the numbers 0 to size - 1,
+     *         as masks with bit n set for n, in order of size. Used to search
+     *         for subsets of candidates, cells, or lines.
+     */
+    public int[] getSubsets() {
+        return subsets;
+    }
+
+    public int index(int row, int col) {
+        return row * size + col;
+    }
+
+    public int row(int cell) {
+        return cell / size;
+    }
+
+    public int col(int cell) {
+        return cell % size;
+    }
+
+    public int box(int cell) {
+        return (row(cell) / boxSize) * boxSize + col(cell) / boxSize;
+    }
+
+    @Override
+    public String toString() {
+        return size + "x" + size;
+    }
+}
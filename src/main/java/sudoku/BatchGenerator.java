@@ -0,0 +1,126 @@
+package sudoku;
+
+import grid.Layout;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Generates puzzles in parallel on a fork-join pool. Generators are not
+ * thread-safe, so each worker thread creates its own. Puzzle i of a batch is
+ * generated from its own seed, mixed from the batch's seed and i, so a batch
+ * gives the same puzzles in the same order on any number of threads, and
+ * batches with nearby seeds don't share puzzles.
+ */
+public class BatchGenerator {
+    private static final int PUZZLES_PER_TASK = 16;
+    // odd constant which spreads the indexes of a batch's puzzles, as in SplittableRandom
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Generator> generators;
+
+    /**
+     * @param layout: Shape of the puzzles to generate
+     * @param numThreads: Number of worker threads, or 0 to use every available core
+     */
+    public BatchGenerator(Layout layout, int numThreads) {
+        if(numThreads < 0) {
+            throw new IllegalArgumentException("Number of threads cannot be negative, was "+numThreads);
+        }
+        this.pool = new ForkJoinPool(numThreads == 0 ? Runtime.getRuntime().availableProcessors() : numThreads);
+        this.generators = ThreadLocal.withInitial(() -> new Generator(layout));
+    }
+
+    /**
+     * Generates puzzles first to first + count - 1 of the batch with the given
+     * seed, blocking until they are finished.
+     * @param seed: Seed of the batch
+     * @param first: Index of the first puzzle within the batch
+     * @param count: Number of puzzles to generate
+     * @param difficulty: Difficulty of the puzzles, or null to accept any
+     * @return Puzzles in order of index
+     */
+    public Generator.Puzzle[] generateAll(long seed, long first, int count, Difficulty difficulty) {
+        Generator.Puzzle[] puzzles = new Generator.Puzzle[count];
+        pool.invoke(new GenerateTask(seed, first, difficulty, puzzles, 0, count));
+        return puzzles;
+    }
+
+    /**
+     * Generates puzzles in chunks, passing each to a consumer in order. Only one
+     * chunk of puzzles is held in memory at a time.
+     * @param seed: Seed of the batch
+     * @param count: Number of puzzles to generate
+     * @param chunkSize: Number of puzzles to generate at once
+     * @param difficulty: Difficulty of the puzzles, or null to accept any
+     * @param consumer: Receives each puzzle, on the calling thread
+     */
+    public void generateAll(long seed, long count, int chunkSize, Difficulty difficulty,
+                            Consumer<Generator.Puzzle> consumer) {
+        for(long first = 0; first < count; first += chunkSize) {
+            int size = (int) Math.min(chunkSize, count - first);
+            for(Generator.Puzzle puzzle : generateAll(seed, first, size, difficulty)) {
+                consumer.accept(puzzle);
+            }
+        }
+    }
+
+    /**
+     * Stops the worker threads once any running batch has finished.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * @return Seed of puzzle index of the batch with the given seed
+     */
+    static long puzzleSeed(long seed, long index) {
+        return mix64(mix64(seed) + index * GOLDEN_GAMMA);
+    }
+
+    /**
+     * The finalizer of SplittableRandom, which spreads each bit of z over the result.
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private class GenerateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long seed;
+        private final long first;
+        private final Difficulty difficulty;
+        private final Generator.Puzzle[] puzzles;
+        private final int from;
+        private final int to;
+
+        GenerateTask(long seed, long first, Difficulty difficulty, Generator.Puzzle[] puzzles, int from, int to) {
+            this.seed = seed;
+            this.first = first;
+            this.difficulty = difficulty;
+            this.puzzles = puzzles;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= PUZZLES_PER_TASK) {
+                Generator generator = generators.get();
+                for(int i = from; i < to; i++) {
+                    puzzles[i] = generator.generate(puzzleSeed(seed, first + i), difficulty);
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new GenerateTask(seed, first, difficulty, puzzles, from, mid),
+                        new GenerateTask(seed, first, difficulty, puzzles, mid, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package sudoku;
+
+import grid.Grid;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Solves lists of grids in parallel on a fork-join pool. Engines are not
+ * thread-safe, so each worker thread creates its own from the supplier.
+ * Results are stored in the same order as the grids they were solved from.
+ */
+public class BatchSolver {
+    private static final int GRIDS_PER_TASK = 16;
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<SolverEngine> engines;
+
+    /**
+     * @param engines: Creates an engine for each worker thread
+     * @param numThreads: Number of worker threads, or 0 to use every available core
+     */
+    public BatchSolver(Supplier<SolverEngine> engines, int numThreads) {
+        if(numThreads < 0) {
+            throw new IllegalArgumentException("Number of threads cannot be negative, was "+numThreads);
+        }
+        this.pool = new ForkJoinPool(numThreads == 0 ? Runtime.getRuntime().availableProcessors() : numThreads);
+        this.engines = ThreadLocal.withInitial(engines);
+    }
+
+    /**
+     * Solves all grids in list, blocking until they are finished.
+     * A grid which causes its engine to throw is counted as an error rather than
+     * stopping the batch.
+     * @param grids: List of grids to solve
+     * @return Results of each solve, in the same order as grids
+     */
+    public Result solveAll(List<Grid> grids) {
+        Result result = new Result(grids.size());
+        pool.invoke(new SolveTask(grids, result, 0, grids.size()));
+        return result;
+    }
+
+    /**
+     * Solves grids taken from an iterator in chunks, reporting the status of
+     * each grid in order followed by a summary. Only one chunk of grids is held
+     * in memory at a time, and a GridSource reloads the grids of the previous
+     * chunk rather than creating new ones, so the reporter must not keep grids
+     * after gridFinished(). A grid which the GridSource rejects as malformed
+     * ends its chunk early, and is reported as invalid after it.
+     * @param grids: Grids to solve, e.g. a GridReader
+     * @param chunkSize: Number of grids to read and solve at once
+     * @param reporter: Receives the result of each grid and a summary
+     */
+    public void solveAll(Iterator<Grid> grids, int chunkSize, Reporter reporter) {
+        ArrayList<Grid> chunk = new ArrayList<>(chunkSize);
+        GridSource source = grids instanceof GridSource ? (GridSource) grids : null;
+        long numSolved = 0;
+        long numGrids = 0;
+        boolean more = true;
+        while(more) {
+            int size = 0;
+            String invalid = null;
+            try {
+                while(size < chunkSize && (more = grids.hasNext())) {
+                    if(size < chunk.size()) {
+                        chunk.set(size, source != null ? source.next(chunk.get(size)) : grids.next());
+                    } else {
+                        chunk.add(grids.next());
+                    }
+                    size++;
+                }
+            } catch (IllegalArgumentException e) {
+                // the source has skipped the malformed grid
+                invalid = e.getMessage();
+            }
+            // the last chunk may be smaller
+            chunk.subList(size, chunk.size()).clear();
+            Result result = solveAll(chunk);
+            result.report(chunk, reporter);
+            numSolved += result.getNumSolved();
+            numGrids += chunk.size();
+            if(invalid != null) {
+                numGrids++;
+                reporter.gridInvalid(invalid);
+            }
+        }
+        reporter.summary(numSolved, numGrids);
+    }
+
+    /**
+     * Stops the worker threads once any running batch has finished.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private class SolveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Grid> grids;
+        private final Result result;
+        private final int from;
+        private final int to;
+
+        SolveTask(List<Grid> grids, Result result, int from, int to) {
+            this.grids = grids;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= GRIDS_PER_TASK) {
+                SolverEngine engine = engines.get();
+                for(int i = from; i < to; i++) {
+                    result.record(i, solve(engine, grids.get(i)));
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SolveTask(grids, result, from, mid),
+                        new SolveTask(grids, result, mid, to));
+            }
+        }
+
+        private SolveStatus solve(SolverEngine engine, Grid grid) {
+            try {
+                return engine.solve(grid) ? SolveStatus.SOLVED : SolveStatus.UNSOLVED;
+            } catch (RuntimeException e) {
+                return SolveStatus.ERROR;
+            }
+        }
+    }
+
+    /**
+     * Status of each grid in a batch, with counters which are updated as the
+     * grids are solved.
+     */
+    public static class Result {
+        private final SolveStatus[] statuses;
+        private final LongAdder numSolved = new LongAdder();
+        private final LongAdder numErrors = new LongAdder();
+
+        Result(int numGrids) {
+            statuses = new SolveStatus[numGrids];
+        }
+
+        private void record(int index, SolveStatus status) {
+            statuses[index] = status;
+            if(status == SolveStatus.SOLVED) {
+                numSolved.increment();
+            }else if(status == SolveStatus.ERROR) {
+                numErrors.increment();
+            }
+        }
+
+        public SolveStatus getStatus(int index) {
+            return statuses[index];
+        }
+
+        public int getNumGrids() {
+            return statuses.length;
+        }
+
+        public long getNumSolved() {
+            return numSolved.sum();
+        }
+
+        public long getNumErrors() {
+            return numErrors.sum();
+        }
+
+        /**
+         * Reports the status of each grid in order.
+         * @param grids: List of grids the results were solved from
+         * @param reporter: Receives the result of each grid
+         */
+        public void report(List<Grid> grids, Reporter reporter) {
+            for(int i = 0; i < statuses.length; i++) {
+                reporter.gridFinished(grids.get(i), statuses[i]);
+            }
+        }
+    }
+}
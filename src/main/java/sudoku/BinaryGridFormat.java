@@ -0,0 +1,107 @@
+package sudoku;
+
+import grid.Layout;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary format for files of grids, read by BinaryGridReader and
+ * written by BinaryGridWriter. The file starts with a header of HEADER_SIZE
+ * bytes, followed by one fixed-size record per grid, so the record of grid i
+ * is found at HEADER_SIZE + i * recordSize() without reading the others.
+ * Every grid in a file has the same size.
+ *
+ * Header, big-endian:
+ * 0: magic "SDKB" (4 bytes)
+ * 4: format version (1 byte)
+ * 5: number of cells in each row of a grid (1 byte)
+ * 6: reserved, 0 (2 bytes)
+ * 8: number of grids (8 bytes)
+ *
+ * Each record holds the value of each cell, 0 for unsolved cells, in
+ * row-major order. Grids up to 9x9 pack each value into 4 bits, with the
+ * first cell of each pair in the high bits of a byte, e.g. 41 bytes for 9x9.
+ * Larger grids, whose values don't fit in 4 bits, store one value per byte.
+ * Names are not stored, grids are named by their position.
+ */
+public final class BinaryGridFormat {
+    public static final int MAGIC = 0x53444B42; // "SDKB"
+    public static final byte VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final int COUNT_OFFSET = 8;
+
+    private BinaryGridFormat() {}
+
+    /**
+     * @return Number of bytes in the record of a grid with the layout
+     */
+    public static int recordSize(Layout layout) {
+        return isPacked(layout) ? (layout.getNumCells() + 1) / 2 : layout.getNumCells();
+    }
+
+    /**
+     * @return true if the layout's values are packed two to a byte
+     */
+    private static boolean isPacked(Layout layout) {
+        return layout.getSize() < 16;
+    }
+
+    /**
+     * @return true if the file starts with the magic number of the binary format
+     */
+    public static boolean isBinary(File file) throws IOException {
+        try(DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Unpacks a record into the values of a grid.
+     * @param layout: Shape of the grids in the file
+     * @param buffer: Buffer containing the record
+     * @param offset: Position of the record in buffer
+     * @param values: Array of the layout's number of values to fill
+     */
+    static void unpack(Layout layout, ByteBuffer buffer, int offset, int[] values) {
+        int numCells = layout.getNumCells();
+        if(!isPacked(layout)) {
+            for(int cell = 0; cell < numCells; cell++) {
+                values[cell] = buffer.get(offset + cell) & 0xFF;
+            }
+            return;
+        }
+        for(int cell = 0; cell < numCells; cell += 2) {
+            int b = buffer.get(offset + cell / 2);
+            values[cell] = (b >>> 4) & 0xF;
+            if(cell + 1 < numCells) {
+                values[cell + 1] = b & 0xF;
+            }
+        }
+    }
+
+    /**
+     * Packs the values of a grid into a record at the buffer's position.
+     * @param layout: Shape of the grids in the file
+     * @param values: Array of the layout's number of values, 0 for unsolved cells
+     */
+    static void pack(Layout layout, int[] values, ByteBuffer buffer) {
+        int numCells = layout.getNumCells();
+        if(!isPacked(layout)) {
+            for(int cell = 0; cell < numCells; cell++) {
+                buffer.put((byte) values[cell]);
+            }
+            return;
+        }
+        for(int cell = 0; cell < numCells; cell += 2) {
+            int low = cell + 1 < numCells ? values[cell + 1] : 0;
+            buffer.put((byte) (values[cell] << 4 | low));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package sudoku;
+
+import grid.Grid;
+import grid.GridValidator;
+import grid.Layout;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads grids from a file in the binary format described by BinaryGridFormat.
+ * The file is memory-mapped, and records are unpacked straight from the
+ * mapping without being copied into a read buffer. Large files are mapped
+ * one window at a time. Each record is checked before its grid is built
+ * (see {@link GridValidator}), as a record can hold values larger than the
+ * grid's size.
+ */
+public class BinaryGridReader implements GridSource {
+    /** Number of records mapped at once */
+    private static final int WINDOW_RECORDS = 1 << 20;
+
+    private final FileChannel channel;
+    private final Layout layout;
+    private final int recordSize;
+    private final long numGrids;
+    private final int[] values;
+    private MappedByteBuffer window;
+    private long windowStart; // index of first grid in window
+    private long index;
+
+    /**
+     * @throws IOException: If the file cannot be read
+     * @throws IllegalArgumentException: If the file is not in the binary format
+     */
+    public BinaryGridReader(File gridFile) throws IOException {
+        channel = FileChannel.open(gridFile.toPath(), StandardOpenOption.READ);
+        try {
+            if(channel.size() < BinaryGridFormat.HEADER_SIZE) {
+                throw new IllegalArgumentException(gridFile + ": file is too short for a header");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, BinaryGridFormat.HEADER_SIZE);
+            if(header.getInt(0) != BinaryGridFormat.MAGIC) {
+                throw new IllegalArgumentException(gridFile + ": not a binary grid file");
+            }
+            if(header.get(4) != BinaryGridFormat.VERSION) {
+                throw new IllegalArgumentException(gridFile + ": unsupported version " + header.get(4));
+            }
+            try {
+                layout = Layout.ofSize(header.get(5));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(gridFile + ": " + e.getMessage());
+            }
+            recordSize = BinaryGridFormat.recordSize(layout);
+            values = new int[layout.getNumCells()];
+            numGrids = header.getLong(BinaryGridFormat.COUNT_OFFSET);
+            long expected = BinaryGridFormat.HEADER_SIZE + numGrids * recordSize;
+            if(numGrids < 0 || channel.size() < expected) {
+                throw new IllegalArgumentException(gridFile + ": header lists " + numGrids
+                        + " grids, but the file is truncated");
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return Shape of every grid in the file
+     */
+    public Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return Number of grids in the file
+     */
+    public long getNumGrids() {
+        return numGrids;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return index < numGrids;
+    }
+
+    @Override
+    public Grid next() {
+        return next(null);
+    }
+
+    @Override
+    public Grid next(Grid reuse) {
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            if(window == null || index - windowStart >= WINDOW_RECORDS) {
+                mapWindow(index);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        BinaryGridFormat.unpack(layout, window, (int) (index - windowStart) * recordSize, values);
+        index++;
+        String error = GridValidator.validate(layout, values);
+        if(error != null) {
+            throw new IllegalArgumentException("Grid " + index + ": " + error);
+        }
+        if(reuse != null && reuse.getLayout() == layout) {
+            reuse.load("Grid " + index, values, true);
+            return reuse;
+        }
+        return new Grid("Grid " + index, layout, values, true);
+    }
+
+    private void mapWindow(long first) throws IOException {
+        long count = Math.min(WINDOW_RECORDS, numGrids - first);
+        window = channel.map(FileChannel.MapMode.READ_ONLY,
+                BinaryGridFormat.HEADER_SIZE + first * recordSize,
+                count * recordSize);
+        windowStart = first;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
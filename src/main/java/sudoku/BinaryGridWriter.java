@@ -0,0 +1,173 @@
+package sudoku;
+
+import grid.Grid;
+import grid.Layout;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes grids to a file in the binary format described by BinaryGridFormat,
+ * e.g. to convert a text file, or to store the solutions of a batch. The
+ * number of grids in the header is filled in when the writer is closed.
+ * All grids must have the same size, which is taken from the first grid
+ * written unless it is given when the writer is created.
+ */
+public class BinaryGridWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private Layout layout;
+    private int[] values;
+    private long numGrids;
+    private long numPendingEmpty; // empty records written before the layout was known
+
+    /**
+     * Creates the file, replacing any existing file. The size of the grids
+     * is taken from the first grid written.
+     * @throws IOException: If the file cannot be written
+     */
+    public BinaryGridWriter(File gridFile) throws IOException {
+        this(gridFile, null);
+    }
+
+    /**
+     * Creates the file, replacing any existing file.
+     * @param layout: Shape of every grid written, or null to take it from the first grid
+     * @throws IOException: If the file cannot be written
+     */
+    public BinaryGridWriter(File gridFile, Layout layout) throws IOException {
+        channel = FileChannel.open(gridFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        // header is rewritten with the final count and size on close
+        writeHeader();
+        if(layout != null) {
+            setLayout(layout);
+        }
+    }
+
+    /**
+     * Writes the grid's current values, 0 for cells which are not solved.
+     * @throws IllegalArgumentException: If the grid's size differs from the grids already written
+     */
+    public void write(Grid grid) throws IOException {
+        Layout gridLayout = grid.getLayout();
+        checkLayout(gridLayout, grid.getName());
+        for(int cell = 0; cell < gridLayout.getNumCells(); cell++) {
+            values[cell] = grid.getSolution(cell);
+        }
+        writeRecord(values);
+    }
+
+    /**
+     * @param values: Values of all cells in row-major order, 0 if unsolved
+     * @throws IllegalArgumentException: If the number of values differs from the grids already written
+     */
+    public void write(int[] values) throws IOException {
+        checkLayout(Layout.ofNumCells(values.length), "Grid " + (numGrids + 1));
+        writeRecord(values);
+    }
+
+    /**
+     * Writes a record with no cell filled in, to stand in for a grid which
+     * could not be read or solved, so that later grids keep their position.
+     */
+    public void writeEmpty() throws IOException {
+        if(layout == null) {
+            numPendingEmpty++;
+            return;
+        }
+        Arrays.fill(values, 0);
+        writeRecord(values);
+    }
+
+    /**
+     * @return Shape of the grids written, or null if not known yet
+     */
+    public Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return Number of grids written so far
+     */
+    public long getNumGrids() {
+        return numGrids + numPendingEmpty;
+    }
+
+    private void checkLayout(Layout gridLayout, String name) throws IOException {
+        if(layout == null) {
+            setLayout(gridLayout);
+        }else if(gridLayout != layout) {
+            throw new IllegalArgumentException("All grids in a binary file must have the same size, "
+                    + name + " is " + gridLayout + ", not " + layout);
+        }
+    }
+
+    /**
+     * Fixes the size of the grids, then writes the empty records which were
+     * waiting for it.
+     */
+    private void setLayout(Layout layout) throws IOException {
+        this.layout = layout;
+        values = new int[layout.getNumCells()];
+        for(; numPendingEmpty > 0; numPendingEmpty--) {
+            writeRecord(values);
+        }
+    }
+
+    private void writeRecord(int[] values) throws IOException {
+        if(buffer.remaining() < BinaryGridFormat.recordSize(layout)) {
+            flush();
+        }
+        BinaryGridFormat.pack(layout, values, buffer);
+        numGrids++;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(BinaryGridFormat.HEADER_SIZE);
+        header.putInt(BinaryGridFormat.MAGIC);
+        header.put(BinaryGridFormat.VERSION);
+        header.put((byte) (layout == null ? Layout.STANDARD : layout).getSize());
+        header.putShort((short) 0);
+        header.putLong(numGrids);
+        header.flip();
+        long position = 0;
+        while(header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+        if(channel.position() < BinaryGridFormat.HEADER_SIZE) {
+            channel.position(BinaryGridFormat.HEADER_SIZE);
+        }
+    }
+
+    /**
+     * Writes any buffered grids and the final header, then closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if(layout == null) {
+                setLayout(Layout.STANDARD);
+            }
+            flush();
+            writeHeader();
+        } finally {
+            channel.close();
+        }
+    }
+}
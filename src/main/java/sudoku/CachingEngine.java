@@ -0,0 +1,121 @@
+package sudoku;
+
+import grid.CanonicalForm;
+import grid.Grid;
+import grid.Layout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Solves grids with another engine, caching the results by canonical form.
+ * A grid which is equivalent to one solved before, e.g. a rotation or
+ * relabelling of it, takes its solution from the cache, mapped back through
+ * the grid's symmetry transform, without being solved again.
+ * Grids are identified by their solved cells, so the engine should be given
+ * grids which have not been partly solved. The techniques stored with each
+ * result are only known if the engine is a TechniqueEngine which measures or
+ * traces its techniques.
+ *
+ * Every grid pays for its canonical form, hit or miss: tens of microseconds
+ * for a typical puzzle, and milliseconds for a grid with very few givens,
+ * whose many symmetries tie. That is about as long as the techniques take to
+ * solve a grid which needs no search, so caching only pays off when the input
+ * repeats equivalent grids which need a search, e.g. a server answering the
+ * same hard puzzles, or a batch with many transformed copies of them. Batches
+ * of distinct grids, or of grids the techniques solve alone, are faster
+ * without it.
+ */
+public class CachingEngine implements SolverEngine {
+    private final SolverEngine engine;
+    private final SolutionCache cache;
+    private List<String> lastTechniques = Collections.emptyList();
+
+    /**
+     * @param engine: Engine which solves grids that miss the cache
+     * @param cache: Cache of results, which may be shared by other engines
+     *             configured in the same way
+     */
+    public CachingEngine(SolverEngine engine, SolutionCache cache) {
+        this.engine = engine;
+        this.cache = cache;
+    }
+
+    @Override
+    public boolean solve(Grid grid) {
+        if(grid.getLayout() != Layout.STANDARD) {
+            // only 9x9 grids have a canonical form
+            boolean solved = engine.solve(grid);
+            lastTechniques = techniquesUsed();
+            return solved;
+        }
+        int[] values = new int[grid.getNumCells()];
+        for(int cell = 0; cell < grid.getNumCells(); cell++) {
+            values[cell] = grid.getSolution(cell);
+        }
+        CanonicalForm form = CanonicalForm.of(values);
+        String key = form.toString();
+        SolutionCache.Entry entry = cache.get(key);
+        if(entry != null) {
+            lastTechniques = Arrays.asList(entry.getTechniques());
+            if(!entry.isSolved()) {
+                return false;
+            }
+            int[] solution = form.fromCanonical(entry.getSolution());
+            for(int cell = 0; cell < grid.getNumCells(); cell++) {
+                if(!grid.isSolved(cell) && !grid.setSolution(cell, solution[cell])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        boolean solved = engine.solve(grid);
+        lastTechniques = techniquesUsed();
+        int[] solution = null;
+        if(solved) {
+            for(int cell = 0; cell < grid.getNumCells(); cell++) {
+                values[cell] = grid.getSolution(cell);
+            }
+            solution = form.toCanonical(values);
+        }
+        cache.put(key, new SolutionCache.Entry(solution, lastTechniques));
+        return solved;
+    }
+
+    /**
+     * @return Names of the techniques which made progress on the last grid
+     *         solved by the engine, or an empty list if it doesn't trace techniques
+     */
+    private List<String> techniquesUsed() {
+        if(!(engine instanceof TechniqueEngine)) {
+            return Collections.emptyList();
+        }
+        GridMetrics metrics = ((TechniqueEngine) engine).getLastGridMetrics();
+        if(metrics == null) {
+            return Collections.emptyList();
+        }
+        List<String> techniques = new ArrayList<>();
+        for(Map.Entry<String, TechniqueStats> entry : metrics.getTechniques().entrySet()) {
+            if(entry.getValue().getFired() > 0) {
+                techniques.add(entry.getKey());
+            }
+        }
+        return techniques;
+    }
+
+    /**
+     * @return Names of the techniques which made progress on the last grid,
+     *         whether it was solved or taken from the cache
+     */
+    public List<String> getLastTechniques() {
+        return lastTechniques;
+    }
+
+    @Override
+    public int countSolutions(Grid grid, int limit) {
+        return engine.countSolutions(grid, limit);
+    }
+}
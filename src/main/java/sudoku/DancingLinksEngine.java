@@ -0,0 +1,241 @@
+package sudoku;
+
+import grid.Grid;
+import grid.Layout;
+
+/**
+ * Solves grids as an exact cover problem using Knuth's Dancing Links
+ * (Algorithm X). Each row of the matrix places a digit in a cell (729 for a
+ * 9x9 grid), and each column is a constraint which must be satisfied exactly
+ * once (324 for a 9x9 grid): every cell has a digit, and every row, column,
+ * and box contains each digit. The matrix is built once per engine and is
+ * reused for every grid of the same size, as the links are always restored
+ * after searching. Only the solved cells of a grid are used as givens, other
+ * candidate eliminations are ignored.
+ */
+public class DancingLinksEngine implements SolverEngine {
+    private static final int ROOT = 0;
+
+    private Layout layout; // shape of the grids the matrix is built for
+    private int numDigits;
+    // node links, node 0 is the root and nodes 1 to the number of columns are column headers
+    private int[] left;
+    private int[] right;
+    private int[] up;
+    private int[] down;
+    private int[] column; // header of each node's column
+    private int[] row; // matrix row of each node, -1 for headers
+    private int[] size; // number of nodes in each column
+    private int[] rowNodes; // first node of each matrix row
+
+    private int[] chosen; // rows chosen at each search depth
+    private int[] solution; // rows of first solution found
+    private int limit;
+    private int numFound;
+
+    public DancingLinksEngine() {
+        buildMatrix(Layout.STANDARD);
+    }
+
+    /**
+     * Builds the matrix for grids with the given layout, replacing the current one.
+     */
+    private void buildMatrix(Layout layout) {
+        this.layout = layout;
+        numDigits = layout.getSize();
+        int numCells = layout.getNumCells();
+        int numColumns = 4 * numCells;
+        int numRows = numCells * numDigits;
+        int numNodes = numColumns + 1 + numRows * 4;
+        left = new int[numNodes];
+        right = new int[numNodes];
+        up = new int[numNodes];
+        down = new int[numNodes];
+        column = new int[numNodes];
+        row = new int[numNodes];
+        size = new int[numColumns + 1];
+        rowNodes = new int[numRows];
+        chosen = new int[numCells];
+        solution = new int[numCells];
+        for(int header = 0; header <= numColumns; header++) {
+            left[header] = header == 0 ? numColumns : header - 1;
+            right[header] = header == numColumns ? 0 : header + 1;
+            up[header] = header;
+            down[header] = header;
+            column[header] = header;
+            row[header] = -1;
+        }
+        int node = numColumns + 1;
+        for(int cell = 0; cell < numCells; cell++) {
+            for(int digit = 0; digit < numDigits; digit++) {
+                int matrixRow = cell * numDigits + digit;
+                int[] headers = {
+                        1 + cell,
+                        1 + numCells + layout.row(cell) * numDigits + digit,
+                        1 + 2 * numCells + layout.col(cell) * numDigits + digit,
+                        1 + 3 * numCells + layout.box(cell) * numDigits + digit};
+                rowNodes[matrixRow] = node;
+                for(int i = 0; i < headers.length; i++) {
+                    int header = headers[i];
+                    // link horizontally into a circular list of four
+                    left[node] = i == 0 ? node + 3 : node - 1;
+                    right[node] = i == 3 ? node - 3 : node + 1;
+                    // append to bottom of column
+                    up[node] = up[header];
+                    down[node] = header;
+                    down[up[header]] = node;
+                    up[header] = node;
+                    column[node] = header;
+                    row[node] = matrixRow;
+                    size[header]++;
+                    node++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean solve(Grid grid) {
+        if(run(grid, 1) == 0) {
+            return false;
+        }
+        for(int matrixRow : solution) {
+            int cell = matrixRow / numDigits;
+            if(!grid.isSolved(cell) && !grid.setSolution(cell, matrixRow % numDigits + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int countSolutions(Grid grid, int limit) {
+        return run(grid, limit);
+    }
+
+    /**
+     * Covers the rows of the grid's solved cells, searches, then restores the matrix.
+     * @return Number of solutions found, at most limit
+     */
+    private int run(Grid grid, int limit) {
+        if(grid.getLayout() != layout) {
+            buildMatrix(grid.getLayout());
+        }
+        this.limit = limit;
+        numFound = 0;
+        int depth = 0;
+        boolean valid = true;
+        for(int cell = 0; cell < layout.getNumCells() && valid; cell++) {
+            int value = grid.getSolution(cell);
+            if(value == 0) continue;
+            int node = rowNodes[cell * numDigits + value - 1];
+            valid = selectRow(node);
+            if(valid) {
+                chosen[depth++] = node;
+            }
+        }
+        if(valid && limit > 0) {
+            search(depth);
+        }
+        // restore links in reverse order
+        for(int i = depth - 1; i >= 0; i--) {
+            unselectRow(chosen[i]);
+        }
+        return numFound;
+    }
+
+    /**
+     * Covers every column of a given's row.
+     * @return false if one of its columns is already covered by another given
+     */
+    private boolean selectRow(int node) {
+        int j = node;
+        do {
+            if(!isActive(column[j])) {
+                return false;
+            }
+            j = right[j];
+        } while(j != node);
+        do {
+            cover(column[j]);
+            j = right[j];
+        } while(j != node);
+        return true;
+    }
+
+    private void unselectRow(int node) {
+        int j = left[node];
+        do {
+            uncover(column[j]);
+            j = left[j];
+        } while(j != left[node]);
+    }
+
+    private boolean isActive(int header) {
+        return right[left[header]] == header;
+    }
+
+    /**
+     * @return true if the search should stop
+     */
+    private boolean search(int depth) {
+        if(right[ROOT] == ROOT) {
+            // all constraints satisfied
+            if(numFound == 0) {
+                for(int i = 0; i < depth; i++) {
+                    solution[i] = row[chosen[i]];
+                }
+            }
+            numFound++;
+            return numFound >= limit;
+        }
+        // choose the column with the fewest rows
+        int header = right[ROOT];
+        for(int c = right[header]; c != ROOT; c = right[c]) {
+            if(size[c] < size[header]) {
+                header = c;
+            }
+        }
+        if(size[header] == 0) {
+            return false;
+        }
+        cover(header);
+        boolean stop = false;
+        for(int node = down[header]; node != header && !stop; node = down[node]) {
+            chosen[depth] = node;
+            for(int j = right[node]; j != node; j = right[j]) {
+                cover(column[j]);
+            }
+            stop = search(depth + 1);
+            for(int j = left[node]; j != node; j = left[j]) {
+                uncover(column[j]);
+            }
+        }
+        uncover(header);
+        return stop;
+    }
+
+    private void cover(int header) {
+        right[left[header]] = right[header];
+        left[right[header]] = left[header];
+        for(int i = down[header]; i != header; i = down[i]) {
+            for(int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int header) {
+        for(int i = up[header]; i != header; i = up[i]) {
+            for(int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[header]] = header;
+        left[right[header]] = header;
+    }
+}
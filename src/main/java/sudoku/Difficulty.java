@@ -0,0 +1,22 @@
+package sudoku;
+
+/**
+ * Grade of a puzzle, set by the hardest technique needed to solve it.
+ */
+public enum Difficulty {
+    /** Solved by the sole and unique candidate rules alone */
+    EASY,
+    /** Needs locked candidates or naked or hidden sets */
+    MEDIUM,
+    /** Needs wings or fish */
+    HARD,
+    /** Cannot be solved by the techniques without a search */
+    EXTREME;
+
+    /**
+     * Parses a difficulty from its constant name, ignoring case.
+     */
+    public static Difficulty parse(String name) {
+        return valueOf(name.trim().toUpperCase());
+    }
+}
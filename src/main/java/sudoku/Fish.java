@@ -0,0 +1,92 @@
+package sudoku;
+
+import grid.Bitboard;
+import grid.Grid;
+import grid.Layout;
+
+import java.util.Arrays;
+
+/**
+ * Uses the fish rule (X-Wing, Swordfish, and Jellyfish) to eliminate candidates:
+ * If the positions of a candidate in n rows (where n is 2, 3, or 4) all lie in
+ * the same n columns, then each of those columns must have the candidate in one
+ * of those rows, so it can be eliminated from the rest of the columns. The same
+ * applies with rows and columns swapped.
+ * Positions are read from each candidate's bitboard and reduced to a mask per
+ * row and column, so a fish is found with a few bitwise operations. The masks
+ * are kept in arrays reused by each thread.
+ */
+public final class Fish {
+    /** Largest number of lines in a fish, see {@link Layout#getSubsets()} */
+    public static final int MAX_SIZE = Layout.MAX_SUBSET_SIZE;
+
+    // masks of the rows and columns of a candidate, sized for the largest grids
+    private static final ThreadLocal<int[][]> LINES = ThreadLocal.withInitial(
+            () -> new int[2][Layout.of(Layout.MAX_BOX_SIZE).getSize()]);
+
+    private Fish() {}
+
+    /**
+     * @param grid: Grid from which candidates will be eliminated
+     */
+    public static void fishElimination(Grid grid) {
+        Layout layout = grid.getLayout();
+        int size = layout.getSize();
+        int length = layout.getBitboardLength();
+        long[] positions = grid.getCandidatePositions();
+        int[][] lines = LINES.get();
+        int[] rows = lines[0]; // columns containing the candidate in each row
+        int[] cols = lines[1]; // rows containing the candidate in each column
+        for(int candidate = 1; candidate <= size; candidate++) {
+            Arrays.fill(rows, 0, size, 0);
+            Arrays.fill(cols, 0, size, 0);
+            for(int word = 0; word < length; word++) {
+                for(long bits = positions[candidate * length + word]; bits != 0; bits &= bits - 1) {
+                    int cell = Bitboard.cell(word, bits);
+                    rows[layout.row(cell)] |= 1 << layout.col(cell);
+                    cols[layout.col(cell)] |= 1 << layout.row(cell);
+                }
+            }
+            if(!eliminate(grid, candidate, rows, cols, true) || !eliminate(grid, candidate, cols, rows, false)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds every fish with base sets in lines and eliminates the candidate
+     * from the cover sets, keeping both masks up to date.
+     * @param lines: Positions of the candidate in each base line
+     * @param crossLines: Positions of the candidate in each cover line
+     * @param byRow: true if the base lines are rows
+     * @return false if a cell is left without candidates
+     */
+    private static boolean eliminate(Grid grid, int candidate, int[] lines, int[] crossLines, boolean byRow) {
+        Layout layout = grid.getLayout();
+        for(int set : layout.getSubsets()) {
+            int cover = 0;
+            boolean empty = false;
+            for(int m = set; m != 0; m &= m - 1) {
+                int positions = lines[Integer.numberOfTrailingZeros(m)];
+                // a line without the candidate already has it solved
+                empty |= positions == 0;
+                cover |= positions;
+            }
+            if(empty || Integer.bitCount(cover) != Integer.bitCount(set)) continue;
+            for(int line = 0; line < layout.getSize(); line++) {
+                int common = lines[line] & cover;
+                if((set & (1 << line)) != 0 || common == 0) continue;
+                for(int m = common; m != 0; m &= m - 1) {
+                    int crossLine = Integer.numberOfTrailingZeros(m);
+                    int cell = byRow ? layout.index(line, crossLine) : layout.index(crossLine, line);
+                    if(!grid.eliminateCandidate(cell, candidate)) {
+                        return false;
+                    }
+                    crossLines[crossLine] &= ~(1 << line);
+                }
+                lines[line] &= ~cover;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,217 @@
+package sudoku;
+
+import grid.Grid;
+import grid.Layout;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generates minimal puzzles with a unique solution, graded by the hardest
+ * technique the solving techniques need to solve them.
+ *
+ * A random solution is made by filling the boxes on the diagonal, which never
+ * share a unit, with random permutations and completing the grid with Dancing
+ * Links. The givens are then removed in a random order, each one only if the
+ * puzzle still has a unique solution. As the solution is known, this is the
+ * same as counting solutions up to a limit of 2, but cheaper: the removed
+ * value is eliminated from its cell, and the search only has to show that
+ * no other solution exists. A given which can't be removed at one point
+ * can't be removed later either, as removing more givens only adds
+ * solutions, so the result is minimal. Every check reloads the same
+ * scratch grid rather than building a new one, so generators are not
+ * thread-safe, see BatchGenerator.
+ */
+public class Generator {
+    private final Layout layout;
+    private final DancingLinksEngine completer = new DancingLinksEngine();
+    private final Search search = new Search();
+    private final TechniqueEngine grader =
+            new TechniqueEngine(false, Reporter.SILENT, null, TechniqueScheduler.STANDARD, true);
+    private final int[] order; // cells in the order givens are removed
+    private final Grid scratch; // reloaded for each solve, with values which are valid by construction
+
+    public Generator() {
+        this(Layout.STANDARD);
+    }
+
+    /**
+     * @param layout: Shape of the puzzles to generate
+     */
+    public Generator(Layout layout) {
+        this.layout = layout;
+        this.order = new int[layout.getNumCells()];
+        this.scratch = new Grid("Puzzle", layout, order);
+    }
+
+    /**
+     * Generates a puzzle. The same seed always gives the same puzzle.
+     * @param seed: Seed of the random choices
+     */
+    public Puzzle generate(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] solution = randomSolution(random);
+        int[] values = solution.clone();
+        for(int cell = 0; cell < order.length; cell++) {
+            order[cell] = cell;
+        }
+        shuffle(order, random);
+        for(int cell : order) {
+            int value = values[cell];
+            values[cell] = 0;
+            if(!isUnique(values, cell, value)) {
+                values[cell] = value;
+            }
+        }
+        return grade(values, solution);
+    }
+
+    /**
+     * Generates puzzles until one has the given difficulty. The same seed
+     * always gives the same puzzle.
+     * @param seed: Seed of the random choices
+     * @param difficulty: Difficulty of the puzzle, or null to accept any
+     */
+    public Puzzle generate(long seed, Difficulty difficulty) {
+        SplittableRandom random = new SplittableRandom(seed);
+        while(true) {
+            Puzzle puzzle = generate(random.nextLong());
+            if(difficulty == null || puzzle.getDifficulty() == difficulty) {
+                return puzzle;
+            }
+        }
+    }
+
+    /**
+     * Some fillings of the diagonal boxes can't be completed, e.g. about half
+     * of them for 4x4 grids, where the two boxes fix each other's rows and
+     * columns, so the boxes are filled again until one can be.
+     * @return Values of every cell of a random solved grid
+     */
+    private int[] randomSolution(SplittableRandom random) {
+        int size = layout.getSize();
+        int[] values = new int[layout.getNumCells()];
+        int[] digits = new int[size];
+        for(int i = 0; i < size; i++) {
+            digits[i] = i + 1;
+        }
+        Grid grid = scratch;
+        do {
+            for(int i = 0; i < layout.getBoxSize(); i++) {
+                int box = i * layout.getBoxSize() + i;
+                shuffle(digits, random);
+                int[] cells = layout.getUnitCells(layout.getBoxOffset() + box);
+                for(int j = 0; j < size; j++) {
+                    values[cells[j]] = digits[j];
+                }
+            }
+            grid.load("Solution", values, true);
+        } while(!completer.solve(grid));
+        for(int cell = 0; cell < values.length; cell++) {
+            values[cell] = grid.getSolution(cell);
+        }
+        return values;
+    }
+
+    /**
+     * @param values: Values of a puzzle which has a solution with value in cell
+     * @return true if that is the puzzle's only solution
+     */
+    private boolean isUnique(int[] values, int cell, int value) {
+        Grid grid = scratch;
+        grid.load("Puzzle", values, true);
+        // if no other candidate is left in the cell, there is no other solution
+        return !grid.eliminateCandidate(cell, value) || !search.solve(grid);
+    }
+
+    /**
+     * Solves the puzzle with the solving techniques, and grades it by the most
+     * expensive technique which made progress.
+     */
+    private Puzzle grade(int[] values, int[] solution) {
+        scratch.load("Puzzle", values, true);
+        boolean solved = grader.solve(scratch);
+        StandardTechnique hardest = null;
+        for(Map.Entry<String, TechniqueStats> entry : grader.getLastGridMetrics().getTechniques().entrySet()) {
+            StandardTechnique technique = StandardTechnique.forName(entry.getKey());
+            if(technique != null && entry.getValue().getFired() > 0
+                    && (hardest == null || technique.getCost() > hardest.getCost())) {
+                hardest = technique;
+            }
+        }
+        if(!solved) {
+            return new Puzzle(values, solution, Solver.SEARCH, Difficulty.EXTREME);
+        }
+        return hardest == null
+                ? new Puzzle(values, solution, null, Difficulty.EASY)
+                : new Puzzle(values, solution, hardest.getName(), hardest.getDifficulty());
+    }
+
+    private static void shuffle(int[] array, SplittableRandom random) {
+        for(int i = array.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = array[i];
+            array[i] = array[j];
+            array[j] = swap;
+        }
+    }
+
+    /**
+     * A generated puzzle, its solution, and its grade.
+     */
+    public static class Puzzle {
+        private final int[] values;
+        private final int[] solution;
+        private final String hardestTechnique;
+        private final Difficulty difficulty;
+
+        Puzzle(int[] values, int[] solution, String hardestTechnique, Difficulty difficulty) {
+            this.values = values;
+            this.solution = solution;
+            this.hardestTechnique = hardestTechnique;
+            this.difficulty = difficulty;
+        }
+
+        /**
+         * @return Values of every cell of the puzzle, 0 if unsolved
+         */
+        public int[] getValues() {
+            return values;
+        }
+
+        /**
+         * @return Values of every cell of the puzzle's unique solution
+         */
+        public int[] getSolution() {
+            return solution;
+        }
+
+        /**
+         * @return Name of the most expensive technique needed to solve the puzzle,
+         *         "Search" if the techniques cannot solve it, or null if no
+         *         technique was needed
+         */
+        public String getHardestTechnique() {
+            return hardestTechnique;
+        }
+
+        public Difficulty getDifficulty() {
+            return difficulty;
+        }
+
+        public int getNumGivens() {
+            int count = 0;
+            for(int value : values) {
+                if(value != 0) count++;
+            }
+            return count;
+        }
+
+        /**
+         * @return New grid of the puzzle, ready to solve
+         */
+        public Grid toGrid(String name) {
+            return new Grid(name, values);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package sudoku;
+
+import grid.Grid;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records the work done by each technique while solving a single grid.
+ * Can be reset and reused for the next grid without allocating.
+ */
+public class GridMetrics {
+    private final LinkedHashMap<String, TechniqueStats> techniques = new LinkedHashMap<>();
+    private String gridName;
+    private long nanos;
+
+    /**
+     * Clears all counts, ready to measure a new grid.
+     */
+    void reset(Grid grid) {
+        gridName = grid.getName();
+        nanos = 0;
+        for(TechniqueStats stats : techniques.values()) {
+            stats.reset();
+        }
+    }
+
+    /**
+     * Records one application of a technique.
+     */
+    void record(String technique, long eliminations, long placements, long nanos) {
+        TechniqueStats stats = techniques.get(technique);
+        if(stats == null) {
+            stats = new TechniqueStats();
+            techniques.put(technique, stats);
+        }
+        stats.record(eliminations, placements, nanos);
+    }
+
+    void setNanos(long nanos) {
+        this.nanos = nanos;
+    }
+
+    public String getGridName() {
+        return gridName;
+    }
+
+    /**
+     * @return Total time spent solving the grid
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * @return Stats of each technique which has been applied to a grid measured by
+     * this object, in the order they were first applied. Techniques which were not
+     * applied to the current grid have counts of 0.
+     */
+    public Map<String, TechniqueStats> getTechniques() {
+        return Collections.unmodifiableMap(techniques);
+    }
+}
@@ -0,0 +1,333 @@
+package sudoku;
+
+import grid.Grid;
+import grid.GridValidator;
+import grid.Layout;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads grids one at a time from a stream of text, so that files larger than
+ * memory can be solved. Bytes are parsed directly from a read buffer.
+ * Two formats are accepted, and can be mixed within a file:
+ * 1. A line for the grid's name, followed by each row as 9 digits on the next 9 lines.
+ * 2. A single line of 81 digits, with 0 or '.' for unsolved cells. These grids
+ *    are named by their line number.
+ * Grids of other sizes are written the same way, e.g. a 16x16 grid as 16 rows
+ * of 16 characters or a line of 256 characters, with the values 10 and above
+ * written as letters from A. The size of a named grid is set by the length of
+ * its first row, and is 9x9 unless that is 4, 16, or 25 characters.
+ * Blank lines between grids are skipped.
+ *
+ * Grids are checked as they are read (see {@link GridValidator}), and an
+ * IllegalArgumentException giving the line and position is thrown for an
+ * invalid character, a missing row, a truncated single-line grid, or a value
+ * repeated in a row, column, or box. A line longer than any row and without
+ * spaces is taken to be a single-line grid, rather than a name.
+ */
+public class GridReader implements GridSource {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferPos;
+    private int bufferEnd;
+    private byte[] line = new byte[128];
+    private int lineLength;
+    private int lineNumber;
+    // values, name, and layout of the next grid, once read by hasNext()
+    private int[] values = new int[Layout.STANDARD.getNumCells()];
+    private String nextName;
+    private Layout nextLayout;
+    private boolean hasNext;
+    // true if the current line was left by a bad grid to start the next one
+    private boolean keepLine;
+
+    public GridReader(File gridFile) throws IOException {
+        this(new FileInputStream(gridFile));
+    }
+
+    public GridReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * @return Sequential stream of the remaining grids, which closes this reader when closed
+     */
+    public Stream<Grid> stream() {
+        Spliterator<Grid> spliterator = Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public boolean hasNext() {
+        if(!hasNext) {
+            try {
+                hasNext = readGrid();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return hasNext;
+    }
+
+    @Override
+    public Grid next() {
+        return next(null);
+    }
+
+    @Override
+    public Grid next(Grid reuse) {
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        hasNext = false;
+        if(reuse != null && reuse.getLayout() == nextLayout) {
+            reuse.load(nextName, values, true);
+            return reuse;
+        }
+        // the values were checked as they were parsed
+        return new Grid(nextName, nextLayout, values, true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads the next grid's values, name, and layout. If the grid is
+     * malformed, the rest of it is skipped before throwing, so that reading
+     * can carry on from the next grid.
+     * @return false at the end of the stream
+     */
+    private boolean readGrid() throws IOException {
+        // skip blank lines
+        do {
+            if(keepLine) {
+                keepLine = false;
+            }else if(!readLine()) {
+                return false;
+            }
+        } while(lineLength == 0);
+        Layout layout = layoutOfLine();
+        if(layout != null) {
+            parseDigits(layout, 0, layout.getNumCells());
+            checkRepeats(layout, "Line " + lineNumber + ": ");
+            nextName = "Grid " + lineNumber;
+            nextLayout = layout;
+            return true;
+        }
+        String name = new String(line, 0, lineLength, StandardCharsets.UTF_8);
+        int nameLine = lineNumber;
+        for(int row = 0; layout == null || row < layout.getSize(); row++) {
+            if(!readLine()) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": grid \"" + name + "\" is missing rows");
+            }
+            if(layout == null) {
+                layout = layoutOfRow();
+            }
+            try {
+                if(lineLength < layout.getSize()) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": row must contain "
+                            + layout.getSize() + " digits, has " + lineLength);
+                }
+                parseDigits(layout, row * layout.getSize(), layout.getSize());
+            } catch (IllegalArgumentException e) {
+                skipRows(layout, layout.getSize() - row);
+                throw e;
+            }
+        }
+        checkRepeats(layout, "Line " + nameLine + ": grid \"" + name + "\": ");
+        nextName = name;
+        nextLayout = layout;
+        return true;
+    }
+
+    /**
+     * @return Layout of the grid on the current line, or null if the line is a name
+     * @throws IllegalArgumentException: If the line is a single-line grid of the wrong length
+     */
+    private Layout layoutOfLine() {
+        Layout layout = null;
+        for(int boxSize = Layout.MIN_BOX_SIZE; boxSize <= Layout.MAX_BOX_SIZE; boxSize++) {
+            if(lineLength == Layout.of(boxSize).getNumCells()) {
+                layout = Layout.of(boxSize);
+            }
+        }
+        if(lineLength <= Layout.of(Layout.MAX_BOX_SIZE).getSize()) {
+            // as short as a row, so only a grid if every value is valid
+            return layout != null && allValues(layout) ? layout : null;
+        }
+        for(int i = 0; i < lineLength; i++) {
+            if(line[i] == ' ' || line[i] == '\t') {
+                return null;
+            }
+        }
+        if(layout == null) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": grid has " + lineLength
+                    + " values, which is not 16, 81, 256, or 625");
+        }
+        return layout;
+    }
+
+    /**
+     * @return true if the current line only holds values of a grid with the layout
+     */
+    private boolean allValues(Layout layout) {
+        for(int i = 0; i < lineLength; i++) {
+            int value = parseValue(layout, line[i]);
+            if(value < 0 || layout.getSize() < value) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Throws if a value is repeated in a row, column, or box of the parsed values.
+     * @param location: Start of the error message, naming the grid
+     */
+    private void checkRepeats(Layout layout, String location) {
+        String error = GridValidator.findRepeatedValue(layout, values);
+        if(error != null) {
+            throw new IllegalArgumentException(location + error);
+        }
+    }
+
+    /**
+     * Skips up to count rows of a bad grid, starting with the current line.
+     * The first line which doesn't hold a row, e.g. the name of the next grid,
+     * is kept for the next call to readGrid().
+     */
+    private void skipRows(Layout layout, int count) throws IOException {
+        for(int row = 0; row < count; row++) {
+            if(row > 0 && !readLine()) {
+                return;
+            }
+            if(!isRow(layout)) {
+                keepLine = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true if the current line looks like a bad row of a grid with the
+     *         layout: a short line of values, or a full row with at most one
+     *         character which isn't a value
+     */
+    private boolean isRow(Layout layout) {
+        int length = Math.min(lineLength, layout.getSize());
+        int numValues = 0;
+        for(int i = 0; i < length; i++) {
+            if(parseValue(layout, line[i]) >= 0) numValues++;
+        }
+        return numValues > 0 && numValues >= (length < layout.getSize() ? length : length - 1);
+    }
+
+    /**
+     * @return Layout of a grid whose first row is the current line
+     */
+    private Layout layoutOfRow() {
+        for(int boxSize = Layout.MIN_BOX_SIZE; boxSize <= Layout.MAX_BOX_SIZE; boxSize++) {
+            if(lineLength == boxSize * boxSize) {
+                return Layout.of(boxSize);
+            }
+        }
+        return Layout.STANDARD;
+    }
+
+    /**
+     * Parses count values from the start of the current line into values, starting at offset.
+     */
+    private void parseDigits(Layout layout, int offset, int count) {
+        if(values.length != layout.getNumCells()) {
+            values = new int[layout.getNumCells()];
+        }
+        for(int i = 0; i < count; i++) {
+            byte b = line[i];
+            int value = parseValue(layout, b);
+            if(value < 0) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": invalid character '" + (char) b
+                        + "' at position " + (i + 1));
+            }else if(value > layout.getSize()) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": value " + value + " at position "
+                        + (i + 1) + " is too large for a " + layout + " grid");
+            }
+            values[offset + i] = value;
+        }
+    }
+
+    /**
+     * Values from 10 are written as letters, which are only values in grids
+     * larger than 9x9.
+     * @return Value written as b, 0 for an unsolved cell, or -1 if b is not a value
+     */
+    private static int parseValue(Layout layout, byte b) {
+        if('0' <= b && b <= '9') {
+            return b - '0';
+        }else if(b == '.') {
+            return 0;
+        }else if(layout.getSize() <= 9) {
+            return -1;
+        }else if('A' <= b && b <= 'Z') {
+            return b - 'A' + 10;
+        }else if('a' <= b && b <= 'z') {
+            return b - 'a' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the next line into the line buffer, without its line terminator.
+     * @return false if the end of the stream was reached before any bytes were read
+     */
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        boolean read = false;
+        while(true) {
+            if(bufferPos == bufferEnd) {
+                bufferEnd = in.read(buffer, 0, BUFFER_SIZE);
+                bufferPos = 0;
+                if(bufferEnd <= 0) {
+                    bufferEnd = 0;
+                    if(read) {
+                        lineNumber++;
+                    }
+                    return read;
+                }
+            }
+            read = true;
+            byte b = buffer[bufferPos++];
+            if(b == '\n') {
+                lineNumber++;
+                return true;
+            }
+            if(b == '\r') continue;
+            if(lineLength == line.length) {
+                byte[] larger = new byte[line.length * 2];
+                System.arraycopy(line, 0, larger, 0, lineLength);
+                line = larger;
+            }
+            line[lineLength++] = b;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package sudoku;
+
+import grid.Grid;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Grids read one at a time from a file, in either the text format read by
+ * GridReader or the binary format read by BinaryGridReader. Malformed grids
+ * are rejected as they are read, with an IllegalArgumentException saying
+ * where the problem is.
+ */
+public interface GridSource extends Iterator<Grid>, Closeable {
+
+    /**
+     * Opens a file of grids, choosing the reader by the file's contents.
+     * @param gridFile: File of grids in text or binary format
+     * @throws IOException: If the file cannot be read
+     */
+    static GridSource open(File gridFile) throws IOException {
+        if(BinaryGridFormat.isBinary(gridFile)) {
+            return new BinaryGridReader(gridFile);
+        }
+        return new GridReader(gridFile);
+    }
+
+    /**
+     * Reads the next grid into reuse if it has the same size, so that a
+     * caller which is finished with each grid before reading the next can
+     * solve a whole file with one grid, see {@link Grid#load(String, int[])}.
+     * @param reuse: Grid to load the next grid into, or null
+     * @return reuse, or a new grid if reuse is null or a different size
+     * @throws java.util.NoSuchElementException: If there are no more grids
+     */
+    default Grid next(Grid reuse) {
+        return next();
+    }
+}
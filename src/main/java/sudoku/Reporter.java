@@ -0,0 +1,87 @@
+package sudoku;
+
+import grid.Grid;
+
+/**
+ * Receives the progress and results of solving grids. Implementations
+ * decide what is worth recording based on their Level, so callers can report
+ * every event without checking whether it will be used.
+ */
+public interface Reporter {
+
+    /**
+     * Amount of detail to report. Each level includes the levels before it.
+     */
+    enum Level {
+        /** Report nothing */
+        SILENT,
+        /** Report the number of grids solved at the end of a batch */
+        SUMMARY,
+        /** Report the result of each grid */
+        GRID,
+        /** Report each pass of the solving techniques over a grid */
+        TRACE
+    }
+
+    /** Reporter which ignores every event */
+    Reporter SILENT = new Reporter() {
+        @Override
+        public void gridStarted(Grid grid) {}
+
+        @Override
+        public void pass(Grid grid, int pass) {}
+
+        @Override
+        public void searchStarted(Grid grid) {}
+
+        @Override
+        public void gridFinished(Grid grid, SolveStatus status) {}
+
+        @Override
+        public void gridInvalid(String error) {}
+
+        @Override
+        public void summary(long numSolved, long numGrids) {}
+
+        @Override
+        public void flush() {}
+    };
+
+    /**
+     * Called before a grid is solved. Not called by parallel batches.
+     */
+    void gridStarted(Grid grid);
+
+    /**
+     * Called at the start of each pass of the solving techniques over a grid.
+     * @param pass: Number of the pass, starting from 1
+     */
+    void pass(Grid grid, int pass);
+
+    /**
+     * Called when the solving techniques cannot progress and a search is started.
+     */
+    void searchStarted(Grid grid);
+
+    /**
+     * Called with the result of each grid, in the order the grids were given.
+     */
+    void gridFinished(Grid grid, SolveStatus status);
+
+    /**
+     * Called in place of gridStarted() and gridFinished() for a grid which
+     * could not be read, in the order the grids were given.
+     * @param error: Why the grid could not be read, including where it is
+     */
+    void gridInvalid(String error);
+
+    /**
+     * Called at the end of a batch of grids.
+     */
+    void summary(long numSolved, long numGrids);
+
+    /**
+     * Writes out any buffered output.
+     */
+    void flush();
+}
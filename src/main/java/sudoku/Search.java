@@ -0,0 +1,174 @@
+package sudoku;
+
+import grid.Candidates;
+import grid.Grid;
+import grid.Layout;
+
+/**
+ * Backtracking search used to finish grids that the solving techniques
+ * cannot progress on, and to count solutions. The sole and unique candidate
+ * rules are applied after each guess, and a grid in which a digit has no
+ * place left in some unit is abandoned, so that most wrong guesses fail
+ * quickly. Guesses are made on an unsolved cell with two candidates, or
+ * otherwise on the two places of a digit in a unit if there is one, as either
+ * of its places holds the digit in every solution, and only then on the cell
+ * with the fewest candidates. A snapshot of the grid is pushed before each
+ * guess, and a failed guess is rolled back, which only undoes the cells it
+ * changed (see {@link Grid#pushSnapshot()}).
+ */
+public class Search {
+    private int limit;
+    private int numFound;
+    // unit and digit mask to guess the places of, set by checkUnits()
+    private int branchUnit;
+    private int branchDigit;
+
+    /**
+     * Searches for a solution to the grid. If one is found, the grid is left
+     * solved, otherwise it is restored to the state it was passed in.
+     * @param grid: Grid to solve
+     * @return true if a solution was found
+     */
+    public boolean solve(Grid grid) {
+        limit = 1;
+        numFound = 0;
+        grid.pushSnapshot();
+        boolean found = search(grid);
+        if(!found) {
+            grid.rollback();
+        }
+        grid.popSnapshot();
+        return found;
+    }
+
+    /**
+     * Counts the solutions of the grid, stopping once limit is reached.
+     * The grid is restored to the state it was passed in.
+     * @param grid: Grid to count solutions of
+     * @param limit: Maximum number of solutions to count
+     * @return Number of solutions found, at most limit
+     */
+    public int countSolutions(Grid grid, int limit) {
+        this.limit = limit;
+        numFound = 0;
+        grid.pushSnapshot();
+        if(limit > 0) {
+            search(grid);
+        }
+        grid.rollback();
+        grid.popSnapshot();
+        return numFound;
+    }
+
+    /**
+     * @return true if the search should stop, with the grid left in its last solved state
+     */
+    private boolean search(Grid grid) {
+        if(!Solver.findSolutions(grid)) {
+            // all candidates eliminated from a cell, grid has no solution
+            return false;
+        }
+        if(grid.isSolved()) {
+            numFound++;
+            return numFound >= limit;
+        }
+        int cell = selectCell(grid);
+        boolean pairCell = Candidates.count(grid.getCandidateMask(cell)) == 2;
+        if(!checkUnits(grid, !pairCell)) {
+            return false;
+        }
+        if(!pairCell && branchUnit >= 0) {
+            return searchPlaces(grid, grid.getLayout().getUnitCells(branchUnit), branchDigit);
+        }
+        grid.pushSnapshot();
+        for(int m = grid.getCandidateMask(cell); m != 0; m = Candidates.withoutFirst(m)) {
+            // a guess which contradicts another cell fails straight away
+            if(grid.setSolution(cell, Candidates.first(m)) && search(grid)) {
+                grid.popSnapshot();
+                return true;
+            }
+            grid.rollback();
+        }
+        grid.popSnapshot();
+        return false;
+    }
+
+    /**
+     * Guesses each place of a digit in a unit in turn. Every solution has the
+     * digit in exactly one of them, so no solution is counted twice.
+     * @param unit: Indexes of the unit's cells
+     * @param digit: Candidate mask of the digit
+     */
+    private boolean searchPlaces(Grid grid, int[] unit, int digit) {
+        int value = Candidates.first(digit);
+        grid.pushSnapshot();
+        for(int cell : unit) {
+            if(grid.isSolved(cell) || (grid.getCandidateMask(cell) & digit) == 0) continue;
+            if(grid.setSolution(cell, value) && search(grid)) {
+                grid.popSnapshot();
+                return true;
+            }
+            grid.rollback();
+        }
+        grid.popSnapshot();
+        return false;
+    }
+
+    /**
+     * Checks that every digit still has a place in every unit, which the sole
+     * and unique candidate rules don't notice.
+     * @param findPlaces: If true, also looks for a digit with exactly two
+     *                  places in a unit, see branchUnit and branchDigit
+     * @return false if a digit has no place left in a unit
+     */
+    private boolean checkUnits(Grid grid, boolean findPlaces) {
+        Layout layout = grid.getLayout();
+        int all = layout.getAllCandidates();
+        branchUnit = -1;
+        for(int unit = 0; unit < layout.getNumUnits(); unit++) {
+            // masks of the digits seen in one or more, two or more, and three or more unsolved cells
+            int seenOnce = 0;
+            int seenTwice = 0;
+            int seenThrice = 0;
+            int solved = 0;
+            for(int cell : layout.getUnitCells(unit)) {
+                int mask = grid.getCandidateMask(cell);
+                if(grid.isSolved(cell)) {
+                    solved |= mask;
+                    continue;
+                }
+                mask &= Candidates.ALL;
+                seenThrice |= seenTwice & mask;
+                seenTwice |= seenOnce & mask;
+                seenOnce |= mask;
+            }
+            if((seenOnce | solved) != all) {
+                return false;
+            }
+            int pairs = seenTwice & ~seenThrice;
+            if(findPlaces && branchUnit < 0 && pairs != 0) {
+                branchUnit = unit;
+                branchDigit = Integer.lowestOneBit(pairs);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The unsolved cell with the fewest candidates
+     */
+    private static int selectCell(Grid grid) {
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        for(int cell = 0; cell < grid.getNumCells(); cell++) {
+            if(grid.isSolved(cell)) continue;
+            int count = Candidates.count(grid.getCandidateMask(cell));
+            if(count < bestCount) {
+                best = cell;
+                bestCount = count;
+                if(count == 2) break;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,239 @@
+package sudoku;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Least recently used cache of solve results, keyed by the canonical form of
+ * the grid solved (see {@link grid.CanonicalForm}), so that a grid hits the
+ * cache if any equivalent grid has been solved. Entries are evicted once their
+ * estimated size exceeds a memory cap. Safe to share between the engines of a
+ * parallel batch, but results depend on how a grid was solved, so a cache
+ * should only be shared by engines with the same configuration.
+ *
+ * The entries are split between NUM_SEGMENTS segments by the hash of their
+ * key, each with its own lock and an equal share of the memory cap, so that
+ * threads looking up different grids rarely wait for each other. Each segment
+ * evicts its own least recently used entries, which approximates evicting the
+ * least recently used entries of the whole cache.
+ */
+public class SolutionCache implements SolutionCacheMBean {
+    /** Number of independently locked parts of the cache, a power of 2 */
+    public static final int NUM_SEGMENTS = 16;
+    // estimated bytes of an entry and its key, not counting the technique names, which are shared
+    private static final int ENTRY_BYTES = 320;
+
+    private final long maxBytes;
+    private final Segment[] segments = new Segment[NUM_SEGMENTS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxBytes: Estimated memory the entries may use
+     */
+    public SolutionCache(long maxBytes) {
+        if(maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive, was "+maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        for(int i = 0; i < NUM_SEGMENTS; i++) {
+            segments[i] = new Segment(maxBytes / NUM_SEGMENTS);
+        }
+    }
+
+    /**
+     * @return Segment holding the key
+     */
+    private Segment segment(String key) {
+        int hash = key.hashCode();
+        // spread the high bits, as the low bits of similar keys are often alike
+        hash ^= hash >>> 16;
+        return segments[hash & (NUM_SEGMENTS - 1)];
+    }
+
+    /**
+     * @param key: Canonical form of a grid
+     * @return Cached result of the grid, or null if it isn't cached
+     */
+    public Entry get(String key) {
+        Entry entry = segment(key).get(key);
+        if(entry == null) {
+            misses.increment();
+        }else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Caches the result of a grid, evicting the least recently used entries
+     * if the cache is full.
+     * @param key: Canonical form of the grid
+     */
+    public void put(String key, Entry entry) {
+        evictions.add(segment(key).put(key, entry));
+    }
+
+    /**
+     * Registers the cache with the platform MBean server as "sudoku:type=Cache".
+     * @throws JMException: If the MBean cannot be registered, e.g. because
+     *                    another cache is already registered.
+     */
+    public void registerMBean() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("sudoku:type=Cache"));
+    }
+
+    @Override
+    public long getHits() { return hits.sum(); }
+
+    @Override
+    public long getMisses() { return misses.sum(); }
+
+    @Override
+    public double getHitRate() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public long getEvictions() { return evictions.sum(); }
+
+    @Override
+    public int getSize() {
+        int size = 0;
+        for(Segment segment : segments) {
+            size += segment.getSize();
+        }
+        return size;
+    }
+
+    @Override
+    public long getBytes() {
+        long bytes = 0;
+        for(Segment segment : segments) {
+            bytes += segment.getBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public long getMaxBytes() { return maxBytes; }
+
+    /**
+     * Writes the hit rate and size of the cache.
+     */
+    public void dump(PrintWriter out) {
+        out.printf("Cache: %d hits, %d misses (%.1f%% hit rate), %d entries, %d evictions, %d/%d KB%n",
+                getHits(), getMisses(), 100 * getHitRate(), getSize(), getEvictions(),
+                getBytes() / 1024, maxBytes / 1024);
+        out.flush();
+    }
+
+    /**
+     * Least recently used part of the cache, guarded by its own lock.
+     */
+    private static final class Segment {
+        private final long maxBytes;
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long bytes;
+
+        Segment(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized Entry get(String key) {
+            return entries.get(key);
+        }
+
+        /**
+         * @return Number of entries evicted to make room
+         */
+        synchronized int put(String key, Entry entry) {
+            Entry previous = entries.put(key, entry);
+            if(previous != null) {
+                bytes -= previous.getBytes();
+            }
+            bytes += entry.getBytes();
+            int evicted = 0;
+            Iterator<Entry> eldest = entries.values().iterator();
+            while(bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().getBytes();
+                eldest.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+
+        synchronized int getSize() {
+            return entries.size();
+        }
+
+        synchronized long getBytes() {
+            return bytes;
+        }
+    }
+
+    /**
+     * Result of solving a grid, in the grid's canonical form.
+     */
+    public static final class Entry {
+        private final byte[] solution;
+        private final String[] techniques;
+
+        /**
+         * @param solution: Values of all 81 cells of the solved grid in canonical
+         *                form, or null if the grid wasn't solved
+         * @param techniques: Names of the techniques which made progress on the grid
+         */
+        public Entry(int[] solution, List<String> techniques) {
+            if(solution == null) {
+                this.solution = null;
+            }else {
+                this.solution = new byte[solution.length];
+                for(int i = 0; i < solution.length; i++) {
+                    this.solution[i] = (byte) solution[i];
+                }
+            }
+            this.techniques = techniques.toArray(new String[0]);
+        }
+
+        public boolean isSolved() {
+            return solution != null;
+        }
+
+        /**
+         * @return Values of all 81 cells of the solved grid in canonical form,
+         *         or null if the grid wasn't solved
+         */
+        public int[] getSolution() {
+            if(solution == null) {
+                return null;
+            }
+            int[] values = new int[solution.length];
+            for(int i = 0; i < solution.length; i++) {
+                values[i] = solution[i];
+            }
+            return values;
+        }
+
+        /**
+         * @return Names of the techniques which made progress on the grid, in
+         *         the order they were first applied
+         */
+        public String[] getTechniques() {
+            return techniques.clone();
+        }
+
+        private long getBytes() {
+            return ENTRY_BYTES + 4L * techniques.length;
+        }
+    }
+}
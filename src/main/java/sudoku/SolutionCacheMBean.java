@@ -0,0 +1,26 @@
+package sudoku;
+
+/**
+ * JMX view of a SolutionCache.
+ */
+public interface SolutionCacheMBean {
+    long getHits();
+
+    long getMisses();
+
+    /**
+     * @return Fraction of lookups which were hits, or 0 if there have been none
+     */
+    double getHitRate();
+
+    long getEvictions();
+
+    int getSize();
+
+    /**
+     * @return Estimated memory used by the cached entries
+     */
+    long getBytes();
+
+    long getMaxBytes();
+}
@@ -0,0 +1,72 @@
+package sudoku;
+
+import grid.Grid;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Reporter which writes each finished grid to a BinaryGridWriter, then passes
+ * every event on to another reporter. Grids are written in the order they
+ * were given, with 0 for the cells of unsolved grids which were not filled in.
+ * A grid which could not be read is written with every cell 0, so the Nth
+ * record always belongs to the Nth grid given.
+ */
+public class SolutionWriter implements Reporter {
+    private final BinaryGridWriter writer;
+    private final Reporter reporter;
+
+    /**
+     * @param writer: Receives each finished grid. Closing it is left to the caller.
+     * @param reporter: Receives every event after the grid is written
+     */
+    public SolutionWriter(BinaryGridWriter writer, Reporter reporter) {
+        this.writer = writer;
+        this.reporter = reporter;
+    }
+
+    @Override
+    public void gridStarted(Grid grid) {
+        reporter.gridStarted(grid);
+    }
+
+    @Override
+    public void pass(Grid grid, int pass) {
+        reporter.pass(grid, pass);
+    }
+
+    @Override
+    public void searchStarted(Grid grid) {
+        reporter.searchStarted(grid);
+    }
+
+    @Override
+    public void gridFinished(Grid grid, SolveStatus status) {
+        try {
+            writer.write(grid);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        reporter.gridFinished(grid, status);
+    }
+
+    @Override
+    public void gridInvalid(String error) {
+        try {
+            writer.writeEmpty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        reporter.gridInvalid(error);
+    }
+
+    @Override
+    public void summary(long numSolved, long numGrids) {
+        reporter.summary(numSolved, numGrids);
+    }
+
+    @Override
+    public void flush() {
+        reporter.flush();
+    }
+}
@@ -0,0 +1,14 @@
+package sudoku;
+
+/**
+ * Outcome of attempting to solve a grid.
+ */
+public enum SolveStatus {
+    SOLVED,
+    /** The engine could not finish the grid, or found that it has no solution */
+    UNSOLVED,
+    /** The engine threw while solving. Contradictory grids are UNSOLVED, not errors. */
+    ERROR,
+    /** The grid could not be read, so it was skipped, see Reporter.gridInvalid() */
+    INVALID
+}
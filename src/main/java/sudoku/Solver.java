@@ -1,50 +1,276 @@
 package sudoku;
 
-import grid.Cell;
+import grid.Candidates;
 import grid.Grid;
-import grid.Group;
+import grid.Layout;
 
+import javax.management.JMException;
+
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Scanner;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.function.Supplier;
 
 public class Solver {
+    private static final int BATCH_CHUNK_SIZE = 4096;
+
+    // channels of dirty units used by techniques, see Grid.takeDirtyUnits()
+    private static final int UNIQUE_CANDIDATE_UNITS = 0;
+    private static final int NAKED_SET_UNITS = 1;
+    private static final int HIDDEN_SET_UNITS = 2;
+
+    /** Name the search is measured under by GridMetrics */
+    static final String SEARCH = "Search";
+
+    // searches are not thread-safe, so each thread counting solutions has its own
+    private static final ThreadLocal<Search> SEARCHES = ThreadLocal.withInitial(Search::new);
 
     public static void main(String[] args) {
         try {
-            String pathname;
-            if(args.length == 1) {
-                pathname = args[0];
-            } else {
-                pathname = "data/grids.txt";
+            String pathname = "data/grids.txt";
+            boolean useSearch = false;
+            boolean useDancingLinks = false;
+            boolean useMetrics = false;
+            long cacheBytes = 0;
+            int port = -1;
+            String convertPathname = null;
+            String outputPathname = null;
+            long numToGenerate = 0;
+            Difficulty difficulty = null;
+            long seed = System.nanoTime();
+            TechniqueScheduler techniques = TechniqueScheduler.STANDARD;
+            int numThreads = 1;
+            Reporter.Level level = Reporter.Level.GRID;
+            StreamReporter.Format format = StreamReporter.Format.TEXT;
+            for(int i = 0; i < args.length; i++) {
+                if(args[i].equals("--search")) {
+                    useSearch = true;
+                } else if(args[i].equals("--dlx")) {
+                    useDancingLinks = true;
+                } else if(args[i].equals("--metrics")) {
+                    useMetrics = true;
+                } else if(args[i].equals("--serve") && i + 1 < args.length) {
+                    // 0 listens on any free port
+                    port = Integer.parseInt(args[++i]);
+                } else if(args[i].equals("--convert") && i + 1 < args.length) {
+                    // binary file to write the input grids to, without solving them
+                    convertPathname = args[++i];
+                } else if(args[i].equals("--output") && i + 1 < args.length) {
+                    // binary file to write the solved grids to
+                    outputPathname = args[++i];
+                } else if(args[i].equals("--generate") && i + 1 < args.length) {
+                    // number of puzzles to generate instead of solving a file
+                    numToGenerate = Long.parseLong(args[++i]);
+                } else if(args[i].equals("--difficulty") && i + 1 < args.length) {
+                    // easy, medium, hard, or extreme
+                    difficulty = Difficulty.parse(args[++i]);
+                } else if(args[i].equals("--seed") && i + 1 < args.length) {
+                    seed = Long.parseLong(args[++i]);
+                } else if(args[i].equals("--cache") && i + 1 < args.length) {
+                    // memory cap in megabytes
+                    cacheBytes = Long.parseLong(args[++i]) << 20;
+                } else if(args[i].equals("--techniques") && i + 1 < args.length) {
+                    // comma-separated, e.g. sole-candidate,unique-candidate
+                    techniques = parseTechniques(args[++i]);
+                } else if(args[i].equals("--threads") && i + 1 < args.length) {
+                    // 0 uses every available core
+                    numThreads = Integer.parseInt(args[++i]);
+                } else if(args[i].equals("--report") && i + 1 < args.length) {
+                    // silent, summary, grid, or trace
+                    level = Reporter.Level.valueOf(args[++i].toUpperCase());
+                } else if(args[i].equals("--format") && i + 1 < args.length) {
+                    // text, csv, or json
+                    format = StreamReporter.Format.valueOf(args[++i].toUpperCase());
+                } else {
+                    pathname = args[i];
+                }
+            }
+            if(convertPathname != null) {
+                convert(new File(pathname), new File(convertPathname));
+                return;
             }
-            ArrayList<Grid> grids = loadGrids(new File(pathname));
-            solveAll(grids);
-        } catch (IOException e) { e.printStackTrace(); }
+            if(numToGenerate > 0) {
+                generate(numToGenerate, difficulty, seed, numThreads, outputPathname);
+                return;
+            }
+            Reporter reporter = StreamReporter.toStandardOutput(level, format);
+            final SolverMetrics metrics = useMetrics ? new SolverMetrics() : null;
+            if(metrics != null) {
+                metrics.registerMBeans();
+            }
+            final SolutionCache cache = cacheBytes > 0 ? new SolutionCache(cacheBytes) : null;
+            if(cache != null && metrics != null) {
+                cache.registerMBean();
+            }
+            if(port >= 0) {
+                serve(port, useDancingLinks, techniques, metrics, cache, numThreads);
+                return;
+            }
+            try(GridSource grids = GridSource.open(new File(pathname));
+                BinaryGridWriter output = outputPathname == null ? null : new BinaryGridWriter(new File(outputPathname))) {
+                if(output != null) {
+                    reporter = new SolutionWriter(output, reporter);
+                }
+                if(numThreads == 1) {
+                    SolverEngine engine = useDancingLinks
+                            ? new DancingLinksEngine()
+                            : new TechniqueEngine(useSearch, reporter, metrics, techniques, cache != null);
+                    if(cache != null) {
+                        engine = new CachingEngine(engine, cache);
+                    }
+                    solveAll(grids, engine, reporter);
+                } else {
+                    final boolean search = useSearch;
+                    final TechniqueScheduler scheduler = techniques;
+                    Supplier<SolverEngine> engines = useDancingLinks
+                            ? DancingLinksEngine::new
+                            : () -> new TechniqueEngine(search, Reporter.SILENT, metrics, scheduler,
+                                    cache != null);
+                    if(cache != null) {
+                        Supplier<SolverEngine> uncached = engines;
+                        engines = () -> new CachingEngine(uncached.get(), cache);
+                    }
+                    BatchSolver batch = new BatchSolver(engines, numThreads);
+                    batch.solveAll(grids, BATCH_CHUNK_SIZE, reporter);
+                    batch.shutdown();
+                }
+            }
+            if(metrics != null) {
+                metrics.dump(new PrintWriter(System.out));
+            }
+            if(cache != null) {
+                cache.dump(new PrintWriter(System.out));
+            }
+        } catch (IOException | JMException e) { e.printStackTrace(); }
     }
 
     /**
-     * Loads sudoku grids from text file
-     * @param gridFile: File consisting of sudoku grids with one line for a name,
-     *                then each row as a 9-digit long number on the following 9 lines.
+     * Runs a SolverServer until the process is stopped. Grids the techniques
+     * cannot solve are always finished with a search, so that the server only
+     * reports grids without a solution as unsolvable.
+     */
+    private static void serve(int port, boolean useDancingLinks, TechniqueScheduler techniques,
+                              SolverMetrics metrics, SolutionCache cache, int numThreads) throws IOException {
+        Supplier<SolverEngine> engines = () -> {
+            SolverEngine engine = useDancingLinks
+                    ? new DancingLinksEngine()
+                    : new TechniqueEngine(true, Reporter.SILENT, metrics, techniques, cache != null);
+            return cache == null ? engine : new CachingEngine(engine, cache);
+        };
+        try(SolverServer server = new SolverServer(port, engines, numThreads, SolverServer.DEFAULT_QUEUE_CAPACITY,
+                SolverServer.DEFAULT_MAX_CONNECTIONS)) {
+            System.out.println("Listening on port " + server.getPort());
+            server.serve();
+        }
+    }
+
+    /**
+     * Generates puzzles in parallel, writing them to standard output in the
+     * text format read by GridReader, named by their number and grade, or to a
+     * binary file. A summary of the grades is written to standard error.
+     * @param count: Number of puzzles to generate
+     * @param difficulty: Difficulty of the puzzles, or null to accept any
+     * @param seed: Seed of the batch, the same seed always gives the same puzzles
+     * @param numThreads: Number of threads, or 0 to use every available core
+     * @param outputPathname: Binary file to write the puzzles to, or null to write text
+     */
+    private static void generate(long count, Difficulty difficulty, long seed, int numThreads,
+                                 String outputPathname) throws IOException {
+        BatchGenerator generator = new BatchGenerator(Layout.STANDARD, numThreads);
+        long[] counts = new long[Difficulty.values().length];
+        long start = System.nanoTime();
+        PrintWriter text = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.US_ASCII), 1 << 16));
+        try(BinaryGridWriter binary = outputPathname == null ? null : new BinaryGridWriter(new File(outputPathname))) {
+            generator.generateAll(seed, count, BATCH_CHUNK_SIZE, difficulty, puzzle -> {
+                long number = ++counts[puzzle.getDifficulty().ordinal()];
+                if(binary != null) {
+                    try {
+                        binary.write(puzzle.getValues());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return;
+                }
+                text.print(puzzle.getDifficulty().name().toLowerCase());
+                text.print(' ');
+                text.print(number);
+                if(puzzle.getHardestTechnique() != null) {
+                    text.print(" (" + puzzle.getHardestTechnique() + ")");
+                }
+                text.println();
+                int[] values = puzzle.getValues();
+                for(int row = 0; row < Layout.STANDARD.getSize(); row++) {
+                    for(int col = 0; col < Layout.STANDARD.getSize(); col++) {
+                        text.print(values[Layout.STANDARD.index(row, col)]);
+                    }
+                    text.println();
+                }
+            });
+        } finally {
+            generator.shutdown();
+            text.flush();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("Generated %d puzzles in %.1fs (%.0f per hour), seed %d:",
+                count, seconds, count / seconds * 3600, seed));
+        for(Difficulty grade : Difficulty.values()) {
+            summary.append(' ').append(grade.name().toLowerCase()).append(' ').append(counts[grade.ordinal()]);
+        }
+        System.err.println(summary);
+    }
+
+    /**
+     * Writes every grid in a file to a binary file, see BinaryGridFormat.
+     * @param gridFile: File of grids in text or binary format
+     * @param binaryFile: File to write, replaced if it exists
+     * @throws IOException: If either file cannot be read or written
+     */
+    public static void convert(File gridFile, File binaryFile) throws IOException {
+        try(GridSource grids = GridSource.open(gridFile);
+            BinaryGridWriter writer = new BinaryGridWriter(binaryFile)) {
+            while(grids.hasNext()) {
+                writer.write(grids.next());
+            }
+            System.out.println("Wrote " + writer.getNumGrids() + " grids to " + binaryFile);
+        }
+    }
+
+    /**
+     * @param names: Comma-separated names of StandardTechniques
+     * @return Scheduler for the named techniques
+     */
+    private static TechniqueScheduler parseTechniques(String names) {
+        EnumSet<StandardTechnique> techniques = EnumSet.noneOf(StandardTechnique.class);
+        for(String name : names.split(",")) {
+            techniques.add(StandardTechnique.parse(name));
+        }
+        return new TechniqueScheduler(techniques);
+    }
+
+    /**
+     * Loads all sudoku grids from file into memory. Use a GridSource
+     * to solve files too large to hold in memory.
+     * @param gridFile: File consisting of sudoku grids in a format accepted by GridReader,
+     *                e.g. one line for a name, then each row as a 9-digit long number
+     *                on the following 9 lines, or in the binary format read by
+     *                BinaryGridReader.
      * @throws IOException: If file reading fails.
      */
     public static ArrayList<Grid> loadGrids(File gridFile) throws IOException {
         ArrayList<Grid> grids = new ArrayList<>();
-        Scanner scan = new Scanner(gridFile);
-        while(scan.hasNext()) {
-            int[][] cells = new int[9][9];
-            String name = scan.nextLine();
-            for(int row = 0; row < 9; row ++) {
-                String line = scan.nextLine();
-                for(int col = 0; col < 9; col++) {
-                    cells[row][col] = Integer.parseInt(String.valueOf(line.charAt(col)));
-                }
+        try(GridSource reader = GridSource.open(gridFile)) {
+            while(reader.hasNext()) {
+                grids.add(reader.next());
             }
-            Grid grid = new Grid(name, cells);
-            grids.add(grid);
         }
         return grids;
     }
@@ -54,13 +280,66 @@ public class Solver {
      * @param grids: List of grids to solve
      */
     public static void solveAll(ArrayList<Grid> grids) {
-        int numSolved = 0;
-        for(Grid grid : grids) {
-            System.out.println(grid.getName());
-            if(solve(grid)) numSolved++;
-            System.out.println("====================");
+        solveAll(grids, false);
+    }
+
+    /**
+     * Calls solve() on all grids in list, reporting the result of each grid
+     * @param grids: List of grids to solve
+     * @param useSearch: Whether to fall back to searching, see solve(Grid, boolean)
+     */
+    public static void solveAll(ArrayList<Grid> grids, boolean useSearch) {
+        solveAll(grids, new TechniqueEngine(useSearch));
+    }
+
+    /**
+     * Solves all grids in list with the given engine, reporting the result of each grid
+     * @param grids: List of grids to solve
+     * @param engine: Engine used to solve each grid
+     */
+    public static void solveAll(ArrayList<Grid> grids, SolverEngine engine) {
+        Reporter reporter = StreamReporter.toStandardOutput(Reporter.Level.GRID, StreamReporter.Format.TEXT);
+        solveAll(grids.iterator(), engine, reporter);
+    }
+
+    /**
+     * Solves each grid as it is taken from the iterator, so that only one
+     * grid needs to be held in memory at a time. A GridSource reloads the same
+     * grid for each puzzle of the same size, so the reporter must not keep
+     * grids after gridFinished(). A grid which causes the engine to throw is
+     * reported as an error, and one which the GridSource rejects as malformed
+     * is reported as invalid, rather than stopping the batch.
+     * @param grids: Grids to solve, e.g. a GridSource
+     * @param engine: Engine used to solve each grid
+     * @param reporter: Receives the result of each grid and a summary
+     */
+    public static void solveAll(Iterator<Grid> grids, SolverEngine engine, Reporter reporter) {
+        long numSolved = 0;
+        long numGrids = 0;
+        GridSource source = grids instanceof GridSource ? (GridSource) grids : null;
+        Grid grid = null;
+        while(true) {
+            try {
+                if(!grids.hasNext()) break;
+                grid = source != null ? source.next(grid) : grids.next();
+            } catch (IllegalArgumentException e) {
+                // the source has skipped the malformed grid
+                numGrids++;
+                reporter.gridInvalid(e.getMessage());
+                continue;
+            }
+            numGrids++;
+            reporter.gridStarted(grid);
+            SolveStatus status;
+            try {
+                status = engine.solve(grid) ? SolveStatus.SOLVED : SolveStatus.UNSOLVED;
+            } catch (RuntimeException e) {
+                status = SolveStatus.ERROR;
+            }
+            if(status == SolveStatus.SOLVED) numSolved++;
+            reporter.gridFinished(grid, status);
         }
-        System.out.println("Solved "+numSolved+"/"+grids.size()+" grids.");
+        reporter.summary(numSolved, numGrids);
     }
 
     /**
@@ -68,68 +347,124 @@ public class Solver {
      * @return true if method solves grid, false if method fails to solve grid
      */
     public static boolean solve(Grid grid) {
-        int count = 1;
-        while(!grid.isSolved()) {
-            int numSolved = grid.getNumSolved();
-            System.out.println(count + ". Solved cells: "+numSolved);
-            eliminateCandidates(grid);
-            findSolutions(grid);
-            if(grid.getNumSolved() <= numSolved || grid.getSolvingFailed()) {
-                // no cells solved in last loop, cannot progress from here
-                System.out.println("Cannot solve sudoku.");
-                return false;
-            }
-            count++;
-        }
-        System.out.println(count + ". Solved cells: 81");
-        System.out.println("Sudoku solved.");
-        return true;
+        return solve(grid, null, Reporter.SILENT, null);
     }
 
     /**
-     * Calls each candidate elimination method in turn.
-     * @param grid: Grid from which candidates will be eliminated
+     * Counts the solutions of the grid with a backtracking search, stopping
+     * once limit is reached. The grid is not modified.
+     * @param grid: Grid to count solutions of
+     * @param limit: Maximum number of solutions to count, e.g. 2 to check for a unique solution
+     * @return Number of solutions found, at most limit
+     */
+    public static int countSolutions(Grid grid, int limit) {
+        return SEARCHES.get().countSolutions(grid, limit);
+    }
+
+    /**
+     * @param grid: Grid to check, which is not modified
+     * @return true if the grid has exactly one solution
+     */
+    public static boolean hasUniqueSolution(Grid grid) {
+        return countSolutions(grid, 2) == 1;
+    }
+
+    /**
+     * @param grid: Grid which method attempts to solve.
+     * @param useSearch: If true, a backtracking search is used to finish the grid
+     *                 when the solving techniques cannot progress any further.
+     * @return true if method solves grid, false if method fails to solve grid
+     */
+    public static boolean solve(Grid grid, boolean useSearch) {
+        return solve(grid, useSearch ? new Search() : null, Reporter.SILENT, null);
+    }
+
+    /**
+     * @param grid: Grid which method attempts to solve.
+     * @param search: Search used to finish the grid if the solving techniques
+     *              cannot progress, or null to give up.
+     * @param reporter: Receives each pass of the solving techniques
+     * @param metrics: Records the work done by each technique, or null to skip measuring
+     * @return true if method solves grid, false if method fails to solve grid
      */
-    public static void eliminateCandidates(Grid grid) {
-        lockedCandidatesElimination(grid);
-        nakedSetElimination(grid);
+    static boolean solve(Grid grid, Search search, Reporter reporter, GridMetrics metrics) {
+        return solve(grid, TechniqueScheduler.STANDARD, search, reporter, metrics);
+    }
+
+    /**
+     * @param grid: Grid which method attempts to solve.
+     * @param scheduler: Techniques to solve the grid with
+     * @return true if method solves grid, false if method fails to solve grid
+     */
+    public static boolean solve(Grid grid, TechniqueScheduler scheduler) {
+        return solve(grid, scheduler, null, Reporter.SILENT, null);
+    }
+
+    /**
+     * @param grid: Grid which method attempts to solve.
+     * @param scheduler: Techniques to solve the grid with
+     * @param search: Search used to finish the grid if the solving techniques
+     *              cannot progress, or null to give up.
+     * @param reporter: Receives each pass of the solving techniques
+     * @param metrics: Records the work done by each technique, or null to skip measuring
+     * @return true if method solves grid, false if method fails to solve grid
+     */
+    static boolean solve(Grid grid, TechniqueScheduler scheduler, Search search, Reporter reporter,
+                         GridMetrics metrics) {
+        if(scheduler.run(grid, reporter, metrics)) {
+            return true;
+        }
+        // techniques cannot progress from here
+        if(search != null && !grid.getSolvingFailed()) {
+            reporter.searchStarted(grid);
+            return search(grid, search, metrics);
+        }
+        return false;
+    }
+
+    private static boolean search(Grid grid, Search search, GridMetrics metrics) {
+        if(metrics == null) {
+            return search.solve(grid);
+        }
+        long eliminated = grid.getNumEliminated();
+        int solved = grid.getNumSolved();
+        long start = System.nanoTime();
+        boolean result = search.solve(grid);
+        metrics.record(SEARCH, grid.getNumEliminated() - eliminated,
+                grid.getNumSolved() - solved, System.nanoTime() - start);
+        return result;
     }
 
     /**
      * Calls each solution-finding method until neither can find any more solutions.
      * @param grid: Grid in which to find solutions
+     * @return false if a contradiction was found, see {@link Grid#getSolvingFailed()}
      */
-    public static void findSolutions(Grid grid) {
+    public static boolean findSolutions(Grid grid) {
         do {
             // loop in method which exits when no more solutions can be found
             soleCandidateSolving(grid);
             //if uniqueCandidateSolving does not find any more solutions, exit
-        } while (uniqueCandidateSolving(grid));
+        } while (!grid.getSolvingFailed() && uniqueCandidateSolving(grid));
+        return !grid.getSolvingFailed();
     }
 
 
     /**
      * Finds solved cells using the sole candidate rule:
      * When a cell only has one candidate, then it must be the solution.
-     * This method loops through each unsolved cell in the grid and checks
-     * for sole candidates. It will continue looking for sole candidates to
-     * solve until there are none left.
+     * This method solves the cells queued by the grid as they are reduced to
+     * one candidate. Solving a cell may queue more cells, and it will continue
+     * until there are none left, or a contradiction is found.
      * @param grid: Grid in which to find solutions
      */
     public static void soleCandidateSolving(Grid grid) {
-        boolean cellsSolved;
-        do {
-            cellsSolved = false;
-            for (int row = 0; row < 9; row++) {
-                for (int col = 0; col < 9; col++) {
-                    Cell cell = grid.getCells()[row][col];
-                    if (!cell.isSolved() && cell.getNumCandidates() == 1) {
-                        cell.setSolution(cell.getCandidates().get(0));
-                        cellsSolved = true;
-                    }
-                }
+        int cell;
+        while (!grid.getSolvingFailed() && (cell = grid.pollSingle()) != -1) {
+            if (!grid.isSolved(cell)) {
+                grid.setSolution(cell, Candidates.first(grid.getCandidateMask(cell)));
             }
-        } while (cellsSolved);
+        }
     }
 
     /**
@@ -137,21 +472,77 @@ public class Solver {
      * If a number can only be put in one cell in a group, then that cell's
      * value is guaranteed to be that number. This method searches for candidates
      * that only exist in one cell in a group and solves those cells.
+     * Only groups which have changed since the last call are searched, and
+     * the search stops at the first contradiction. When the Vector API is
+     * available, the candidates of every group are counted at once (see
+     * {@link UnitScanner}).
      * @param grid: Grid in which to find solutions
      * @return: true if one or more cells are solved by the method
      */
     public static boolean uniqueCandidateSolving(Grid grid) {
         boolean cellsSolved = false;
-        for(Group[] category : grid.getAllGroups()) {
-            for(Group group : category) {
-                // key = candidate, value = list of cells with candidate
-                HashMap<Integer, ArrayList<Cell>> map = getCandidateCellMap(group.getCells());
-                // check for single occurrences of candidates
-                for(Integer candidate : map.keySet()) {
-                    if(map.get(candidate).size() == 1) {
-                        map.get(candidate).get(0).setSolution(candidate);
-                        cellsSolved = true;
+        Layout layout = grid.getLayout();
+        int[] dirty = grid.takeDirtyUnits(UNIQUE_CANDIDATE_UNITS);
+        UnitScanner scanner = UnitScanner.forThread(layout);
+        int[] unique = null;
+        for(int word = 0; word < dirty.length; word++) {
+            for(int bits = dirty[word]; bits != 0; bits &= bits - 1) {
+                int unit = (word << 5) + Integer.numberOfTrailingZeros(bits);
+                int[] cells = layout.getUnitCells(unit);
+                if(scanner != null && unique == null) {
+                    // scan every unit once the first changed unit is found, so that
+                    // a pass with no changed units costs nothing
+                    unique = scanner.findUniqueCandidates(grid.getCandidateMasks());
+                }
+                int candidates = scanner == null ? uniqueCandidates(grid, cells) : unique[unit];
+                cellsSolved |= uniqueCandidateSolving(grid, cells, candidates);
+                if(grid.getSolvingFailed()) {
+                    return cellsSolved;
+                }
+            }
+        }
+        return cellsSolved;
+    }
+
+    /**
+     * @param unit: Indexes of the unit's cells
+     * @return Mask of the candidates found in exactly one unsolved cell
+     */
+    private static int uniqueCandidates(Grid grid, int[] unit) {
+        // build masks of candidates seen in one cell, and in more than one cell
+        int seenOnce = 0;
+        int seenTwice = 0;
+        for(int cell : unit) {
+            if(grid.isSolved(cell)) continue;
+            int mask = grid.getCandidateMask(cell) & Candidates.ALL;
+            seenTwice |= seenOnce & mask;
+            seenOnce |= mask;
+        }
+        return seenOnce & ~seenTwice;
+    }
+
+    /**
+     * Solves the cell containing each unique candidate. When the masks of
+     * every unit are found at once, solving cells of an earlier unit can leave
+     * this unit's mask out of date. Candidates are only ever eliminated, so a
+     * unique candidate is still in at most one cell, and it is skipped if that
+     * cell has since been solved or lost it.
+     * @param unit: Indexes of the unit's cells
+     * @param unique: Candidates found in exactly one unsolved cell of the unit
+     * @return true if one or more cells are solved, stopping at a contradiction
+     */
+    private static boolean uniqueCandidateSolving(Grid grid, int[] unit, int unique) {
+        boolean cellsSolved = false;
+        // check for single occurrences of candidates
+        for(int m = unique; m != 0; m = Candidates.withoutFirst(m)) {
+            int candidate = Candidates.first(m);
+            for(int cell : unit) {
+                if(!grid.isSolved(cell) && Candidates.contains(grid.getCandidateMask(cell), candidate)) {
+                    if(!grid.setSolution(cell, candidate)) {
+                        return true;
                     }
+                    cellsSolved = true;
+                    break;
                 }
             }
         }
@@ -174,95 +565,185 @@ public class Solver {
      * @param grid: Grid from which candidates will be eliminated
      */
     public static void lockedCandidatesElimination(Grid grid) {
-        // row/column candidate elimination
-        for(Group box : grid.getBoxes()) {
-            Group[] boxRows = new Group[] {
-                    box.getCells().get(0).getRow(),
-                    box.getCells().get(3).getRow(),
-                    box.getCells().get(6).getRow()};
-            intersectionElimination(box, boxRows);
-            Group[] boxCols = new Group[] {
-                    box.getCells().get(0).getCol(),
-                    box.getCells().get(1).getCol(),
-                    box.getCells().get(2).getCol()};
-            intersectionElimination(box, boxCols);
+        Layout layout = grid.getLayout();
+        for(int i = 0; i < layout.getNumIntersections(); i++) {
+            int shared = unsolvedCandidates(grid, layout.getIntersectionCells(i));
+            if(shared == 0) continue;
+            int lineRest = unsolvedCandidates(grid, layout.getIntersectionLineRest(i));
+            int boxRest = unsolvedCandidates(grid, layout.getIntersectionBoxRest(i));
+            // candidates restricted to the intersection within the box
+            // can be eliminated from the rest of the line
+            if(!eliminateCandidates(grid, layout.getIntersectionLineRest(i), shared & ~boxRest & lineRest)) {
+                return;
+            }
+            // candidates restricted to the intersection within the line
+            // can be eliminated from the rest of the box
+            if(!eliminateCandidates(grid, layout.getIntersectionBoxRest(i), shared & ~lineRest & boxRest)) {
+                return;
+            }
         }
-        // box candidate elimination
-        for(Group row : grid.getRows()) {
-            Group[] rowBoxes = new Group[] {
-                    row.getCells().get(0).getBox(),
-                    row.getCells().get(3).getBox(),
-                    row.getCells().get(6).getBox()};
-            intersectionElimination(row, rowBoxes);
+    }
+
+    /**
+     * @param cells: Indexes of cells
+     * @return Union of the candidates of the unsolved cells
+     */
+    private static int unsolvedCandidates(Grid grid, int[] cells) {
+        int mask = 0;
+        for(int cell : cells) {
+            int cellMask = grid.getCandidateMask(cell);
+            if((cellMask & Candidates.UNSOLVED) != 0) {
+                mask |= cellMask;
+            }
+        }
+        return mask & Candidates.ALL;
+    }
+
+    /**
+     * Eliminates each candidate in mask from the unsolved cells which contain it.
+     * @param cells: Indexes of cells
+     * @param mask: Candidates to eliminate
+     * @return false if a cell is left without candidates
+     */
+    private static boolean eliminateCandidates(Grid grid, int[] cells, int mask) {
+        if(mask == 0) return true;
+        for(int cell : cells) {
+            int common = grid.getCandidateMask(cell) & mask;
+            if(common == 0 || grid.isSolved(cell)) continue;
+            if(!eliminateCandidates(grid, cell, common)) {
+                return false;
+            }
         }
-        for(Group col : grid.getCols()) {
-            Group[] colBoxes = new Group[] {
-                    col.getCells().get(0).getBox(),
-                    col.getCells().get(3).getBox(),
-                    col.getCells().get(6).getBox()};
-            intersectionElimination(col, colBoxes);
+        return true;
+    }
+
+    /**
+     * Uses the naked subset rule to eliminate candidates:
+     * If n cells in a group (where n is 2, 3, or 4) contain only n candidates
+     * between them, then those candidates must be solutions of those cells, and
+     * can be eliminated from the rest of the group. For example, if two cells
+     * in a row both contain only 3 and 7, no other cell in that row can be 3 or 7.
+     * Only groups which have changed since the last call are searched.
+     * @param grid: Grid from which candidates will be eliminated
+     */
+    public static void nakedSetElimination(Grid grid) {
+        Layout layout = grid.getLayout();
+        int[] dirty = grid.takeDirtyUnits(NAKED_SET_UNITS);
+        for(int word = 0; word < dirty.length; word++) {
+            for(int bits = dirty[word]; bits != 0; bits &= bits - 1) {
+                int[] unit = layout.getUnitCells((word << 5) + Integer.numberOfTrailingZeros(bits));
+                if(!nakedSetElimination(grid, unit, layout.getSubsets())) {
+                    return;
+                }
+            }
         }
     }
 
     /**
-     * Used by lockedCandidatesElimination method to eliminate candidates.
-     * @param group: Main group. Can be a row, column, or box.
-     * @param subGroups: The groups contained within the main group. If the main
-     *                 group is a box, these will be the three rows or columns within
-     *                 that box. If the main group is a row or column, then these will
-     *                 be the three boxes contained by that row or column.
+     * @param unit: Indexes of the unit's cells
+     * @param subsets: Sets of 2 to 4 candidates, from 0, see {@link Layout#getSubsets()}
+     * @return false if a cell is left without candidates
      */
-    private static void intersectionElimination(Group group, Group[] subGroups) {
-        HashMap<Integer, ArrayList<Cell>> map = getCandidateCellMap(group.getCells());
-        for(Group subGroup : subGroups) {
-            ArrayList<Cell> intersection = new ArrayList<>(group.getCells());
-            intersection.retainAll(subGroup.getCells());
-            for(Integer candidate : map.keySet()) {
-                if(intersection.containsAll(map.get(candidate))) {
-                    // candidate is restricted to one row in box
-                    // can be eliminated from the rest of the row
-                    ArrayList<Cell> groupOutsideBox = new ArrayList<>(subGroup.getCells());
-                    groupOutsideBox.removeAll(intersection);
-                    for(Cell c : groupOutsideBox) {
-                        if(!c.isSolved()) c.eliminateCandidate(candidate);
+    private static boolean nakedSetElimination(Grid grid, int[] unit, int[] subsets) {
+        int numUnsolved = countUnsolved(grid, unit);
+        int union = unsolvedCandidates(grid, unit);
+        for(int subset : subsets) {
+            int set = subset << 1; // candidates start at bit 1
+            int size = Candidates.count(set);
+            if(size >= numUnsolved) break;
+            if((set & ~union) != 0) continue;
+            // count the cells whose candidates are all in the set
+            int count = 0;
+            for(int cell : unit) {
+                int mask = grid.getCandidateMask(cell);
+                if(!grid.isSolved(cell) && (mask & Candidates.ALL & ~set) == 0) {
+                    count++;
+                }
+            }
+            if(count == size) {
+                for(int cell : unit) {
+                    int mask = grid.getCandidateMask(cell);
+                    if(!grid.isSolved(cell) && (mask & Candidates.ALL & ~set) != 0
+                            && !eliminateCandidates(grid, cell, mask & set)) {
+                        return false;
                     }
                 }
             }
         }
+        return true;
     }
 
     /**
-     * If two cells in a group contain an identical pair of candidates and only those two
-     * candidates, then no other cells in that group could be those values.
-     * @param grid
+     * Uses the hidden subset rule to eliminate candidates:
+     * If n candidates in a group (where n is 2, 3, or 4) are only found in the
+     * same n cells, then those cells must contain those candidates, and every
+     * other candidate can be eliminated from those cells.
+     * Only groups which have changed since the last call are searched.
+     * @param grid: Grid from which candidates will be eliminated
      */
-    public static void nakedSetElimination(Grid grid) {
-        // naked pair solving
-        for(Group[] category : grid.getAllGroups()) {
-            for(Group group : category) {
-                HashMap<Integer, ArrayList<Cell>> map = getCandidateCellMap(group.getCells());
-                
+    public static void hiddenSetElimination(Grid grid) {
+        Layout layout = grid.getLayout();
+        int[] dirty = grid.takeDirtyUnits(HIDDEN_SET_UNITS);
+        for(int word = 0; word < dirty.length; word++) {
+            for(int bits = dirty[word]; bits != 0; bits &= bits - 1) {
+                int[] unit = layout.getUnitCells((word << 5) + Integer.numberOfTrailingZeros(bits));
+                if(!hiddenSetElimination(grid, unit, layout.getSubsets())) {
+                    return;
+                }
             }
         }
     }
 
     /**
-     * Note: ignores solved cells.
-     * @param cells: ArrayList of cells to search for candidates
-     * @return: HashMap where each key is a candidate and each value is a list of
-     * cells with the key as a candidate.
+     * @param unit: Indexes of the unit's cells
+     * @param subsets: Sets of 2 to 4 candidates, from 0, see {@link Layout#getSubsets()}
+     * @return false if a cell is left without candidates
      */
-    private static HashMap<Integer, ArrayList<Cell>> getCandidateCellMap(ArrayList<Cell> cells) {
-        HashMap<Integer, ArrayList<Cell>> map = new HashMap<>();
-        for(Cell cell : cells) {
-            if(cell.isSolved()) continue;
-            for(Integer candidate : cell.getCandidates()) {
-                if(!map.containsKey(candidate)) {
-                    map.put(candidate, new ArrayList<>());
+    private static boolean hiddenSetElimination(Grid grid, int[] unit, int[] subsets) {
+        int numUnsolved = countUnsolved(grid, unit);
+        int union = unsolvedCandidates(grid, unit);
+        for(int subset : subsets) {
+            int set = subset << 1; // candidates start at bit 1
+            int size = Candidates.count(set);
+            if(size >= numUnsolved) break;
+            if((set & ~union) != 0) continue;
+            // find the positions in the unit of the cells containing any candidate in the set
+            int positions = 0;
+            for(int i = 0; i < unit.length; i++) {
+                if(!grid.isSolved(unit[i]) && (grid.getCandidateMask(unit[i]) & set) != 0) {
+                    positions |= 1 << i;
                 }
-                map.get(candidate).add(cell);
+            }
+            if(Integer.bitCount(positions) == size) {
+                for(int i = 0; i < unit.length; i++) {
+                    if((positions & (1 << i)) != 0
+                            && !eliminateCandidates(grid, unit[i], grid.getCandidateMask(unit[i]) & Candidates.ALL & ~set)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int countUnsolved(Grid grid, int[] cells) {
+        int count = 0;
+        for(int cell : cells) {
+            if(!grid.isSolved(cell)) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Eliminates each candidate in mask from an unsolved cell.
+     * @return false if the cell is left without candidates
+     */
+    private static boolean eliminateCandidates(Grid grid, int cell, int mask) {
+        for(int m = mask; m != 0; m = Candidates.withoutFirst(m)) {
+            if(!grid.eliminateCandidate(cell, Candidates.first(m))) {
+                return false;
             }
         }
-        return map;
+        return true;
     }
 }
@@ -0,0 +1,26 @@
+package sudoku;
+
+import grid.Grid;
+
+/**
+ * A method of solving grids. Implementations are not thread-safe, and
+ * should not be shared between threads.
+ */
+public interface SolverEngine {
+
+    /**
+     * Attempts to solve the grid, setting the solution of each cell it solves.
+     * @param grid: Grid to solve
+     * @return true if the grid is solved
+     */
+    boolean solve(Grid grid);
+
+    /**
+     * Counts the solutions of the grid, stopping once limit is reached.
+     * A count of 1 means the grid has a unique solution. The grid is not modified.
+     * @param grid: Grid to count solutions of
+     * @param limit: Maximum number of solutions to count
+     * @return Number of solutions found, at most limit
+     */
+    int countSolutions(Grid grid, int limit);
+}
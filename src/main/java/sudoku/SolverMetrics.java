@@ -0,0 +1,119 @@
+package sudoku;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates GridMetrics from every grid solved, by technique. Safe to share
+ * between the engines of a parallel batch. The totals can be published as
+ * JMX MBeans under the "sudoku" domain, and dumped as a table.
+ */
+public class SolverMetrics implements SolverMetricsMBean {
+    private static final String DOMAIN = "sudoku";
+
+    private final ConcurrentMap<String, TechniqueMetrics> techniques = new ConcurrentHashMap<>();
+    private final List<String> techniqueNames = new CopyOnWriteArrayList<>(); // in order first seen
+    private final LongAdder gridsMeasured = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private long slowestNanos;
+    private String slowestGridName;
+    private MBeanServer server;
+
+    /**
+     * Adds the counts from a single grid to the totals.
+     */
+    public void record(GridMetrics grid) {
+        gridsMeasured.increment();
+        nanos.add(grid.getNanos());
+        synchronized(this) {
+            if(grid.getNanos() > slowestNanos) {
+                slowestNanos = grid.getNanos();
+                slowestGridName = grid.getGridName();
+            }
+        }
+        for(Map.Entry<String, TechniqueStats> entry : grid.getTechniques().entrySet()) {
+            TechniqueMetrics metrics = techniques.get(entry.getKey());
+            if(metrics == null) {
+                metrics = addTechnique(entry.getKey());
+            }
+            metrics.add(entry.getValue());
+        }
+    }
+
+    private synchronized TechniqueMetrics addTechnique(String name) {
+        TechniqueMetrics metrics = techniques.get(name);
+        if(metrics == null) {
+            metrics = new TechniqueMetrics();
+            techniques.put(name, metrics);
+            techniqueNames.add(name);
+            if(server != null) {
+                registerTechnique(name, metrics);
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Registers these metrics, and the metrics of each technique, with the
+     * platform MBean server. Techniques seen later are registered as they appear.
+     * @throws JMException: If the MBeans cannot be registered, e.g. because
+     *                    another SolverMetrics is already registered.
+     */
+    public synchronized void registerMBeans() throws JMException {
+        server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, new ObjectName(DOMAIN + ":type=Solver"));
+        for(Map.Entry<String, TechniqueMetrics> entry : techniques.entrySet()) {
+            registerTechnique(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void registerTechnique(String name, TechniqueMetrics metrics) {
+        try {
+            server.registerMBean(metrics, new ObjectName(DOMAIN + ":type=Technique,name=" + ObjectName.quote(name)));
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register metrics of technique " + name, e);
+        }
+    }
+
+    public Map<String, TechniqueMetrics> getTechniques() {
+        return techniques;
+    }
+
+    @Override
+    public long getGridsMeasured() { return gridsMeasured.sum(); }
+
+    @Override
+    public long getTimeMillis() { return nanos.sum() / 1_000_000; }
+
+    @Override
+    public synchronized double getSlowestGridMillis() { return slowestNanos / 1e6; }
+
+    @Override
+    public synchronized String getSlowestGridName() { return slowestGridName; }
+
+    /**
+     * Writes the totals of each technique as a table.
+     */
+    public void dump(PrintWriter out) {
+        out.printf("%-24s %12s %12s %12s %12s %12s%n",
+                "Technique", "Applied", "Fired", "Eliminated", "Placed", "Time (ms)");
+        for(String name : techniqueNames) {
+            TechniqueMetrics metrics = techniques.get(name);
+            out.printf("%-24s %12d %12d %12d %12d %12.3f%n", name,
+                    metrics.getApplications(), metrics.getFired(), metrics.getEliminations(),
+                    metrics.getPlacements(), metrics.getNanos() / 1e6);
+        }
+        out.printf("Grids: %d, total time: %.3f ms, slowest: %s (%.3f ms)%n",
+                getGridsMeasured(), nanos.sum() / 1e6, getSlowestGridName(), getSlowestGridMillis());
+        out.flush();
+    }
+}
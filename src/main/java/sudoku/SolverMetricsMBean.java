@@ -0,0 +1,17 @@
+package sudoku;
+
+/**
+ * JMX view of the grids measured by a SolverMetrics.
+ */
+public interface SolverMetricsMBean {
+    long getGridsMeasured();
+
+    long getTimeMillis();
+
+    /**
+     * @return Longest time taken to solve a single grid
+     */
+    double getSlowestGridMillis();
+
+    String getSlowestGridName();
+}
@@ -0,0 +1,327 @@
+package sudoku;
+
+import grid.Grid;
+import grid.GridValidator;
+import grid.Layout;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Long-running server which solves grids sent over a TCP socket on the
+ * loopback interface, so that JVM startup and warm-up are only paid once.
+ *
+ * The protocol is line based. Each request is a grid as a line of 81 digits,
+ * with 0 or '.' for unsolved cells. Each response is a line of the form
+ * "STATUS LATENCY RESULT", in the order the requests were received, where
+ * STATUS is SOLVED, UNSOLVABLE, INVALID, or ERROR, LATENCY is the time in
+ * microseconds from reading the request to answering it, and RESULT is the
+ * grid's 81 digits after solving (0 for cells left unsolved), or a description
+ * of why the request is invalid or couldn't be answered. ERROR is sent when the
+ * engine throws, or the server is closing. Blank lines are ignored. Only 9x9
+ * grids are accepted.
+ *
+ * A request of "COUNT" followed by a space and a grid checks whether the grid
+ * has a unique solution instead of solving it. Its response has the status
+ * COUNTED and the number of solutions as its RESULT: 0, 1, or 2 for two or
+ * more, as the count stops at the second solution.
+ *
+ * Requests which arrive together on a connection are batched, split between
+ * the worker threads, and answered with a single flush. The workers' queue is
+ * bounded. When it is full, the connection's thread waits for room in the
+ * queue, so it stops reading from the socket until the workers catch up,
+ * which pushes back on the client. Grids are only ever solved by the workers.
+ * Every request is answered, even if solving it fails.
+ *
+ * Each connection is handled by a thread from a fixed-size pool. Once every
+ * thread is busy, further connections are not accepted until one closes, so
+ * they wait in the socket's backlog.
+ */
+public class SolverServer implements Closeable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_CONNECTIONS = 64;
+    /** Maximum number of requests answered in one batch */
+    public static final int MAX_BATCH_SIZE = 256;
+
+    private static final Layout LAYOUT = Layout.STANDARD;
+    private static final String COUNT = "COUNT ";
+    /** Solutions counted by a COUNT request, enough to tell a unique solution from several */
+    private static final int COUNT_LIMIT = 2;
+
+    private enum Status {SOLVED, UNSOLVABLE, INVALID, COUNTED, ERROR}
+
+    private final ServerSocket serverSocket;
+    private final ThreadPoolExecutor workers;
+    private final ExecutorService connections;
+    private final Semaphore connectionSlots;
+    private final ThreadLocal<SolverEngine> engines;
+    // each thread which solves requests reloads its own grid and values
+    private final ThreadLocal<Grid> grids =
+            ThreadLocal.withInitial(() -> new Grid("Request", LAYOUT, new int[LAYOUT.getNumCells()]));
+    private final ThreadLocal<int[]> values = ThreadLocal.withInitial(() -> new int[LAYOUT.getNumCells()]);
+    private final int numThreads;
+    private volatile boolean closed;
+
+    /**
+     * Binds the server to a port on the loopback interface. Requests are not
+     * accepted until serve() is called.
+     * @param port: Port to listen on, or 0 for any free port
+     * @param engines: Creates an engine for each thread which solves grids.
+     *               Grids which the engine cannot solve are reported as unsolvable,
+     *               so it should finish grids with a search.
+     * @param numThreads: Number of worker threads, or 0 to use every available core
+     * @param queueCapacity: Number of batches which can wait for a worker
+     * @param maxConnections: Number of connections handled at once
+     * @throws IOException: If the port cannot be bound
+     */
+    public SolverServer(int port, Supplier<SolverEngine> engines, int numThreads, int queueCapacity,
+                        int maxConnections) throws IOException {
+        if(numThreads < 0) {
+            throw new IllegalArgumentException("Number of threads cannot be negative, was "+numThreads);
+        }else if(maxConnections < 1) {
+            throw new IllegalArgumentException("Maximum number of connections must be positive, was "
+                    +maxConnections);
+        }
+        this.numThreads = numThreads == 0 ? Runtime.getRuntime().availableProcessors() : numThreads;
+        this.engines = ThreadLocal.withInitial(engines);
+        this.workers = new ThreadPoolExecutor(this.numThreads, this.numThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), SolverServer::waitOrReject);
+        this.connections = Executors.newFixedThreadPool(maxConnections);
+        this.connectionSlots = new Semaphore(maxConnections);
+        this.serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * @return Port the server is listening on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the server is closed. Each connection is
+     * handled on its own thread, and no more are accepted while
+     * maxConnections are open.
+     * @throws IOException: If accepting a connection fails
+     */
+    public void serve() throws IOException {
+        while(!closed) {
+            try {
+                connectionSlots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                connectionSlots.release();
+                if(closed) return;
+                throw e;
+            }
+            try {
+                connections.execute(() -> {
+                    try {
+                        handle(socket);
+                    } finally {
+                        connectionSlots.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the server was closed while accepting
+                socket.close();
+                connectionSlots.release();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections and closes the worker threads. Requests
+     * already being solved are finished.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        // wakes serve() if it is waiting for a connection to close
+        connectionSlots.release();
+        connections.shutdownNow();
+        workers.shutdown();
+    }
+
+    /**
+     * Waits for room in the workers' queue when it is full, so the batch is
+     * still solved by a worker and the connection's thread stops reading.
+     * A batch submitted after close(), or while the connection's thread is
+     * interrupted by it, is rejected, so that its requests can still be answered.
+     */
+    private static void waitOrReject(Runnable task, ThreadPoolExecutor executor) {
+        if(executor.isShutdown()) {
+            throw new RejectedExecutionException("Server is closed");
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Server is closed");
+        }
+        // the workers may have finished the queue and exited before the batch was added
+        if(executor.isShutdown() && executor.remove(task)) {
+            throw new RejectedExecutionException("Server is closed");
+        }
+    }
+
+    private void handle(Socket socket) {
+        try(Socket s = socket;
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+            Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII))) {
+            List<String> batch = new ArrayList<>();
+            long[] received = new long[MAX_BATCH_SIZE];
+            String line;
+            while((line = in.readLine()) != null) {
+                // take every request which has already arrived, up to the batch size
+                do {
+                    if(!line.trim().isEmpty()) {
+                        received[batch.size()] = System.nanoTime();
+                        batch.add(line.trim());
+                    }
+                } while(batch.size() < MAX_BATCH_SIZE && in.ready() && (line = in.readLine()) != null);
+                if(batch.isEmpty()) continue;
+                for(String response : solveBatch(batch, received)) {
+                    out.write(response);
+                    out.write('\n');
+                }
+                out.flush();
+                batch.clear();
+            }
+        } catch (IOException e) {
+            // connection closed by the client
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Splits a batch of requests between the workers, and waits for them all to be answered.
+     * @return Response to each request, in order
+     */
+    private String[] solveBatch(List<String> batch, long[] received) throws InterruptedException {
+        String[] responses = new String[batch.size()];
+        int chunkSize = (batch.size() + numThreads - 1) / numThreads;
+        List<Future<?>> chunks = new ArrayList<>();
+        for(int from = 0; from < batch.size(); from += chunkSize) {
+            final int start = from;
+            final int end = Math.min(from + chunkSize, batch.size());
+            try {
+                chunks.add(workers.submit(() -> {
+                    for(int i = start; i < end; i++) {
+                        try {
+                            responses[i] = solve(batch.get(i), received[i]);
+                        } catch (RuntimeException e) {
+                            responses[i] = response(Status.ERROR, received[i], "Solving failed: " + e);
+                        }
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                // the server is closing, the requests are answered below
+            }
+        }
+        for(Future<?> chunk : chunks) {
+            try {
+                chunk.get();
+            } catch (ExecutionException e) {
+                // an Error was thrown, the chunk's unanswered requests are answered below
+            }
+        }
+        for(int i = 0; i < responses.length; i++) {
+            if(responses[i] == null) {
+                responses[i] = response(Status.ERROR, received[i],
+                        workers.isShutdown() ? "Server is closing" : "Solving failed");
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * @param request: Grid as a line of 81 digits, optionally after "COUNT "
+     * @param received: Time the request was read, from System.nanoTime()
+     * @return Response to the request
+     */
+    private String solve(String request, long received) {
+        boolean count = request.startsWith(COUNT);
+        if(count) {
+            request = request.substring(COUNT.length()).trim();
+        }
+        int[] values = this.values.get();
+        String error = parse(request, values);
+        if(error != null) {
+            return response(Status.INVALID, received, error);
+        }
+        Grid grid = grids.get();
+        // parse() has validated the values
+        grid.load("Request", values, true);
+        if(grid.getSolvingFailed()) {
+            return response(Status.INVALID, received, "Contradictory grid: a cell has no candidates");
+        }
+        if(count) {
+            return response(Status.COUNTED, received,
+                    Integer.toString(engines.get().countSolutions(grid, COUNT_LIMIT)));
+        }
+        Status status = engines.get().solve(grid) ? Status.SOLVED : Status.UNSOLVABLE;
+        char[] digits = new char[LAYOUT.getNumCells()];
+        for(int cell = 0; cell < LAYOUT.getNumCells(); cell++) {
+            digits[cell] = (char) ('0' + grid.getSolution(cell));
+        }
+        return response(status, received, new String(digits));
+    }
+
+    /**
+     * Parses a grid into values.
+     * @return Description of why the grid is invalid, or null if it is valid
+     */
+    private static String parse(String request, int[] values) {
+        if(request.length() != LAYOUT.getNumCells()) {
+            return "Grid must be 81 characters long, was " + request.length();
+        }
+        for(int cell = 0; cell < LAYOUT.getNumCells(); cell++) {
+            char c = request.charAt(cell);
+            if('0' <= c && c <= '9') {
+                values[cell] = c - '0';
+            }else if(c == '.') {
+                values[cell] = 0;
+            }else {
+                return "Invalid character '" + c + "' at position " + (cell + 1);
+            }
+        }
+        // a grid with a repeated digit has no solution, but can take a search a very long time to rule out
+        return GridValidator.findRepeatedValue(LAYOUT, values);
+    }
+
+    private static String response(Status status, long received, String result) {
+        long micros = (System.nanoTime() - received) / 1000;
+        return status + " " + micros + " " + result;
+    }
+}
@@ -0,0 +1,95 @@
+package sudoku;
+
+import grid.Grid;
+
+/**
+ * The solving techniques implemented by Solver, Fish, and Wings, with costs
+ * roughly in proportion to the time each takes to apply to a typical grid.
+ */
+public enum StandardTechnique implements Technique {
+    SOLE_CANDIDATE("Sole candidate", 1, Difficulty.EASY),
+    UNIQUE_CANDIDATE("Unique candidate", 2, Difficulty.EASY),
+    LOCKED_CANDIDATES("Locked candidates", 4, Difficulty.MEDIUM),
+    NAKED_SETS("Naked sets", 16, Difficulty.MEDIUM),
+    HIDDEN_SETS("Hidden sets", 20, Difficulty.MEDIUM),
+    XY_WING("XY-Wing", 24, Difficulty.HARD),
+    XYZ_WING("XYZ-Wing", 28, Difficulty.HARD),
+    FISH("Fish", 40, Difficulty.HARD);
+
+    private final String name;
+    private final int cost;
+    private final Difficulty difficulty;
+
+    StandardTechnique(String name, int cost, Difficulty difficulty) {
+        this.name = name;
+        this.cost = cost;
+        this.difficulty = difficulty;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * @return Difficulty of a puzzle which needs this technique
+     */
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    @Override
+    public void apply(Grid grid) {
+        switch(this) {
+            case SOLE_CANDIDATE:
+                Solver.soleCandidateSolving(grid);
+                break;
+            case UNIQUE_CANDIDATE:
+                Solver.uniqueCandidateSolving(grid);
+                break;
+            case LOCKED_CANDIDATES:
+                Solver.lockedCandidatesElimination(grid);
+                break;
+            case NAKED_SETS:
+                Solver.nakedSetElimination(grid);
+                break;
+            case HIDDEN_SETS:
+                Solver.hiddenSetElimination(grid);
+                break;
+            case XY_WING:
+                Wings.xyWingElimination(grid);
+                break;
+            case XYZ_WING:
+                Wings.xyzWingElimination(grid);
+                break;
+            default:
+                Fish.fishElimination(grid);
+        }
+    }
+
+    /**
+     * Parses a technique from its constant name, ignoring case and allowing
+     * '-' in place of '_', e.g. "naked-sets".
+     */
+    public static StandardTechnique parse(String name) {
+        return valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+
+    /**
+     * @param name: Name the technique is reported under, see getName()
+     * @return The technique with the name, or null if there is none
+     */
+    public static StandardTechnique forName(String name) {
+        for(StandardTechnique technique : values()) {
+            if(technique.name.equals(name)) {
+                return technique;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,201 @@
+package sudoku;
+
+import grid.Grid;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Reporter which writes events to a Writer as human-readable text, CSV
+ * records, or JSON lines. Output is buffered until flush() or summary() is called.
+ */
+public class StreamReporter implements Reporter {
+
+    public enum Format {TEXT, CSV, JSON}
+
+    private static final String CSV_HEADER = "event,name,pass,solved_cells,status,solved_grids,total_grids,error";
+
+    private final Writer out;
+    private final Level level;
+    private final Format format;
+    private boolean headerWritten;
+
+    /**
+     * @param out: Writer to report to, wrapped in a BufferedWriter if it isn't one
+     * @param level: Amount of detail to report
+     * @param format: Format of the output
+     */
+    public StreamReporter(Writer out, Level level, Format format) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+        this.level = level;
+        this.format = format;
+    }
+
+    /**
+     * @return Reporter which writes to standard output
+     */
+    public static StreamReporter toStandardOutput(Level level, Format format) {
+        return new StreamReporter(new OutputStreamWriter(System.out), level, format);
+    }
+
+    @Override
+    public synchronized void gridStarted(Grid grid) {
+        if(level == Level.TRACE && format == Format.TEXT) {
+            writeLine(grid.getName());
+        }
+    }
+
+    @Override
+    public synchronized void pass(Grid grid, int pass) {
+        if(level != Level.TRACE) return;
+        if(format == Format.TEXT) {
+            writeLine(pass + ". Solved cells: " + grid.getNumSolved());
+        }else {
+            writeRecord("pass", grid.getName(), pass, grid.getNumSolved(), null, -1, -1);
+        }
+    }
+
+    @Override
+    public synchronized void searchStarted(Grid grid) {
+        if(level != Level.TRACE) return;
+        if(format == Format.TEXT) {
+            writeLine("Searching for solution.");
+        }else {
+            writeRecord("search", grid.getName(), -1, grid.getNumSolved(), null, -1, -1);
+        }
+    }
+
+    @Override
+    public synchronized void gridFinished(Grid grid, SolveStatus status) {
+        if(level.compareTo(Level.GRID) < 0) return;
+        if(format == Format.TEXT) {
+            if(level == Level.GRID) {
+                writeLine(grid.getName());
+            }
+            if(status == SolveStatus.SOLVED) {
+                writeLine("Sudoku solved.");
+            }else if(status == SolveStatus.ERROR) {
+                writeLine("Error solving sudoku.");
+            }else {
+                writeLine("Cannot solve sudoku.");
+            }
+            writeLine("====================");
+        }else {
+            writeRecord("grid", grid.getName(), -1, grid.getNumSolved(), status, -1, -1);
+        }
+    }
+
+    @Override
+    public synchronized void gridInvalid(String error) {
+        if(level.compareTo(Level.GRID) < 0) return;
+        if(format == Format.TEXT) {
+            writeLine(error);
+            writeLine("Invalid sudoku, skipped.");
+            writeLine("====================");
+        }else {
+            writeRecord("grid", null, -1, -1, SolveStatus.INVALID, -1, -1, error);
+        }
+    }
+
+    @Override
+    public synchronized void summary(long numSolved, long numGrids) {
+        if(level.compareTo(Level.SUMMARY) >= 0) {
+            if(format == Format.TEXT) {
+                writeLine("Solved " + numSolved + "/" + numGrids + " grids.");
+            }else {
+                writeRecord("summary", null, -1, -1, null, numSolved, numGrids);
+            }
+        }
+        flush();
+    }
+
+    @Override
+    public synchronized void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeRecord(String event, String name, int pass, int solvedCells,
+                             SolveStatus status, long solvedGrids, long totalGrids) {
+        writeRecord(event, name, pass, solvedCells, status, solvedGrids, totalGrids, null);
+    }
+
+    /**
+     * Writes a CSV or JSON record. Fields which are null or negative are left out.
+     * @param error: Why the grid could not be read, or null
+     */
+    private void writeRecord(String event, String name, int pass, int solvedCells,
+                             SolveStatus status, long solvedGrids, long totalGrids, String error) {
+        StringBuilder record = new StringBuilder();
+        if(format == Format.CSV) {
+            if(!headerWritten) {
+                writeLine(CSV_HEADER);
+                headerWritten = true;
+            }
+            record.append(event).append(',');
+            if(name != null) record.append(csvQuote(name));
+            record.append(',');
+            if(pass >= 0) record.append(pass);
+            record.append(',');
+            if(solvedCells >= 0) record.append(solvedCells);
+            record.append(',');
+            if(status != null) record.append(status);
+            record.append(',');
+            if(solvedGrids >= 0) record.append(solvedGrids);
+            record.append(',');
+            if(totalGrids >= 0) record.append(totalGrids);
+            record.append(',');
+            if(error != null) record.append(csvQuote(error));
+        }else {
+            record.append("{\"event\":\"").append(event).append('"');
+            if(name != null) record.append(",\"name\":").append(jsonQuote(name));
+            if(pass >= 0) record.append(",\"pass\":").append(pass);
+            if(solvedCells >= 0) record.append(",\"solvedCells\":").append(solvedCells);
+            if(status != null) record.append(",\"status\":\"").append(status).append('"');
+            if(solvedGrids >= 0) record.append(",\"solvedGrids\":").append(solvedGrids);
+            if(totalGrids >= 0) record.append(",\"totalGrids\":").append(totalGrids);
+            if(error != null) record.append(",\"error\":").append(jsonQuote(error));
+            record.append('}');
+        }
+        writeLine(record.toString());
+    }
+
+    private static String csvQuote(String value) {
+        if(value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String jsonQuote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2);
+        quoted.append('"');
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if(c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            }else if(c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            }else {
+                quoted.append(c);
+            }
+        }
+        quoted.append('"');
+        return quoted.toString();
+    }
+
+    private void writeLine(String line) {
+        try {
+            out.write(line);
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package sudoku;
+
+import grid.Grid;
+
+/**
+ * A solving technique which eliminates candidates from, or finds solutions
+ * in, a grid. Techniques are scheduled by a TechniqueScheduler in order of
+ * cost, so implementations should be stateless and safe to share between threads.
+ */
+public interface Technique {
+
+    /**
+     * @return Name the technique is reported and measured under
+     */
+    String getName();
+
+    /**
+     * @return Relative cost of applying the technique. Cheaper techniques are
+     *         applied first, and more expensive ones only once they stall.
+     */
+    int getCost();
+
+    /**
+     * Applies the technique to the grid once. Progress is detected by the
+     * scheduler from the grid's counts of eliminated candidates and solved cells.
+     * @param grid: Grid to apply the technique to
+     */
+    void apply(Grid grid);
+}
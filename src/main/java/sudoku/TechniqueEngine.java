@@ -0,0 +1,108 @@
+package sudoku;
+
+import grid.Grid;
+
+/**
+ * Solves grids using a schedule of human solving techniques, optionally
+ * finishing them with a backtracking search. Solutions are always counted
+ * with the search.
+ */
+public class TechniqueEngine implements SolverEngine {
+    private final Search search = new Search();
+    private final boolean useSearch;
+    private final Reporter reporter;
+    private final TechniqueScheduler scheduler;
+    private final SolverMetrics metrics;
+    private final GridMetrics gridMetrics;
+
+    /**
+     * @param useSearch: If true, grids the solving techniques cannot finish are
+     *                 finished with a backtracking search.
+     */
+    public TechniqueEngine(boolean useSearch) {
+        this(useSearch, Reporter.SILENT);
+    }
+
+    /**
+     * @param useSearch: If true, grids the solving techniques cannot finish are
+     *                 finished with a backtracking search.
+     * @param reporter: Receives each pass of the solving techniques
+     */
+    public TechniqueEngine(boolean useSearch, Reporter reporter) {
+        this(useSearch, reporter, null);
+    }
+
+    /**
+     * @param useSearch: If true, grids the solving techniques cannot finish are
+     *                 finished with a backtracking search.
+     * @param reporter: Receives each pass of the solving techniques
+     * @param metrics: Receives the work done by each technique on every grid
+     *               solved, or null to skip measuring
+     */
+    public TechniqueEngine(boolean useSearch, Reporter reporter, SolverMetrics metrics) {
+        this(useSearch, reporter, metrics, TechniqueScheduler.STANDARD);
+    }
+
+    /**
+     * @param useSearch: If true, grids the solving techniques cannot finish are
+     *                 finished with a backtracking search.
+     * @param reporter: Receives each pass of the solving techniques
+     * @param metrics: Receives the work done by each technique on every grid
+     *               solved, or null to skip measuring
+     * @param scheduler: Techniques to solve grids with
+     */
+    public TechniqueEngine(boolean useSearch, Reporter reporter, SolverMetrics metrics,
+                           TechniqueScheduler scheduler) {
+        this(useSearch, reporter, metrics, scheduler, false);
+    }
+
+    /**
+     * @param useSearch: If true, grids the solving techniques cannot finish are
+     *                 finished with a backtracking search.
+     * @param reporter: Receives each pass of the solving techniques
+     * @param metrics: Receives the work done by each technique on every grid
+     *               solved, or null to skip measuring
+     * @param scheduler: Techniques to solve grids with
+     * @param traceTechniques: If true, the work done by each technique on the
+     *                       last grid is kept even without metrics, see
+     *                       getLastGridMetrics(), e.g. for a CachingEngine
+     */
+    public TechniqueEngine(boolean useSearch, Reporter reporter, SolverMetrics metrics,
+                           TechniqueScheduler scheduler, boolean traceTechniques) {
+        this.useSearch = useSearch;
+        this.reporter = reporter;
+        this.metrics = metrics;
+        this.scheduler = scheduler;
+        this.gridMetrics = metrics == null && !traceTechniques ? null : new GridMetrics();
+    }
+
+    @Override
+    public boolean solve(Grid grid) {
+        if(gridMetrics == null) {
+            return Solver.solve(grid, scheduler, useSearch ? search : null, reporter, null);
+        }
+        gridMetrics.reset(grid);
+        long start = System.nanoTime();
+        try {
+            return Solver.solve(grid, scheduler, useSearch ? search : null, reporter, gridMetrics);
+        } finally {
+            gridMetrics.setNanos(System.nanoTime() - start);
+            if(metrics != null) {
+                metrics.record(gridMetrics);
+            }
+        }
+    }
+
+    /**
+     * @return Metrics of the last grid solved, e.g. to see which techniques it
+     *         needed, or null if this engine isn't measuring or tracing techniques
+     */
+    public GridMetrics getLastGridMetrics() {
+        return gridMetrics;
+    }
+
+    @Override
+    public int countSolutions(Grid grid, int limit) {
+        return search.countSolutions(grid, limit);
+    }
+}
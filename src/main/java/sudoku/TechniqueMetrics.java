@@ -0,0 +1,40 @@
+package sudoku;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totals of the work done by a technique across every grid solved.
+ * Safe to update from multiple threads.
+ */
+public class TechniqueMetrics implements TechniqueMetricsMBean {
+    private final LongAdder applications = new LongAdder();
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder eliminations = new LongAdder();
+    private final LongAdder placements = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    void add(TechniqueStats stats) {
+        applications.add(stats.getApplications());
+        fired.add(stats.getFired());
+        eliminations.add(stats.getEliminations());
+        placements.add(stats.getPlacements());
+        nanos.add(stats.getNanos());
+    }
+
+    @Override
+    public long getApplications() { return applications.sum(); }
+
+    @Override
+    public long getFired() { return fired.sum(); }
+
+    @Override
+    public long getEliminations() { return eliminations.sum(); }
+
+    @Override
+    public long getPlacements() { return placements.sum(); }
+
+    public long getNanos() { return nanos.sum(); }
+
+    @Override
+    public long getTimeMillis() { return getNanos() / 1_000_000; }
+}
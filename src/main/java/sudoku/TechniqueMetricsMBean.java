@@ -0,0 +1,16 @@
+package sudoku;
+
+/**
+ * JMX view of the work done by a technique across every grid solved.
+ */
+public interface TechniqueMetricsMBean {
+    long getApplications();
+
+    long getFired();
+
+    long getEliminations();
+
+    long getPlacements();
+
+    long getTimeMillis();
+}
@@ -0,0 +1,86 @@
+package sudoku;
+
+import grid.Grid;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Applies a set of techniques to a grid, cheapest first. A more expensive
+ * technique is only applied once every cheaper one has stalled, and after any
+ * technique makes progress the schedule restarts from the cheapest, so grids
+ * which the cheap techniques can solve never pay for the expensive ones.
+ * Schedulers are immutable and can be shared between threads.
+ */
+public class TechniqueScheduler {
+    /** Scheduler for every StandardTechnique */
+    public static final TechniqueScheduler STANDARD = new TechniqueScheduler(EnumSet.allOf(StandardTechnique.class));
+
+    private final Technique[] techniques;
+
+    /**
+     * @param techniques: Techniques to apply, in any order. Techniques of equal
+     *                  cost are applied in the order given.
+     */
+    public TechniqueScheduler(Collection<? extends Technique> techniques) {
+        if(techniques.isEmpty()) {
+            throw new IllegalArgumentException("At least one technique is required");
+        }
+        this.techniques = techniques.toArray(new Technique[0]);
+        Arrays.sort(this.techniques, Comparator.comparingInt(Technique::getCost));
+    }
+
+    /**
+     * @return Techniques in the order they are tried
+     */
+    public List<Technique> getTechniques() {
+        return Collections.unmodifiableList(Arrays.asList(techniques));
+    }
+
+    /**
+     * Applies the techniques until the grid is solved, or none of them can
+     * make progress. A new pass is reported each time the schedule restarts.
+     * @param grid: Grid to solve
+     * @param reporter: Receives each pass over the grid
+     * @param metrics: Records the work done by each technique, or null to skip measuring
+     * @return true if the grid is solved
+     */
+    public boolean run(Grid grid, Reporter reporter, GridMetrics metrics) {
+        int pass = 1;
+        reporter.pass(grid, pass);
+        int i = 0;
+        while(i < techniques.length && !grid.isSolved() && !grid.getSolvingFailed()) {
+            if(apply(techniques[i], grid, metrics)) {
+                if(i > 0) {
+                    reporter.pass(grid, ++pass);
+                }
+                i = 0;
+            }else {
+                i++;
+            }
+        }
+        return grid.isSolved();
+    }
+
+    /**
+     * Applies a technique to the grid, measuring it if metrics is not null.
+     * @return true if any candidates were eliminated or cells solved
+     */
+    private static boolean apply(Technique technique, Grid grid, GridMetrics metrics) {
+        long eliminated = grid.getNumEliminated();
+        int solved = grid.getNumSolved();
+        if(metrics == null) {
+            technique.apply(grid);
+        }else {
+            long start = System.nanoTime();
+            technique.apply(grid);
+            metrics.record(technique.getName(), grid.getNumEliminated() - eliminated,
+                    grid.getNumSolved() - solved, System.nanoTime() - start);
+        }
+        return grid.getNumEliminated() != eliminated || grid.getNumSolved() != solved;
+    }
+}
@@ -0,0 +1,51 @@
+package sudoku;
+
+/**
+ * Counts the work done by one solving technique on one grid.
+ */
+public class TechniqueStats {
+    private long applications;
+    private long fired;
+    private long eliminations;
+    private long placements;
+    private long nanos;
+
+    /**
+     * Records one application of the technique.
+     * @param eliminations: Number of candidates eliminated
+     * @param placements: Number of cells solved
+     * @param nanos: Time taken
+     */
+    void record(long eliminations, long placements, long nanos) {
+        applications++;
+        if(eliminations > 0 || placements > 0) {
+            fired++;
+        }
+        this.eliminations += eliminations;
+        this.placements += placements;
+        this.nanos += nanos;
+    }
+
+    void reset() {
+        applications = 0;
+        fired = 0;
+        eliminations = 0;
+        placements = 0;
+        nanos = 0;
+    }
+
+    /** @return Number of times the technique was applied */
+    public long getApplications() { return applications; }
+
+    /** @return Number of applications which eliminated a candidate or solved a cell */
+    public long getFired() { return fired; }
+
+    /** @return Number of candidates eliminated by the technique */
+    public long getEliminations() { return eliminations; }
+
+    /** @return Number of cells solved by the technique */
+    public long getPlacements() { return placements; }
+
+    /** @return Time spent applying the technique */
+    public long getNanos() { return nanos; }
+}
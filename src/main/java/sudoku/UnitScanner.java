@@ -0,0 +1,69 @@
+package sudoku;
+
+import grid.Layout;
+
+/**
+ * Finds the candidates which are in exactly one unsolved cell of each unit,
+ * for the unique candidate rule, scanning every unit of the grid at once.
+ * The only implementation, VectorUnitScanner, uses the incubating JDK Vector
+ * API, so it is only built when a JDK 17 or later is given to the build (see
+ * build.gradle), and only loaded when the JVM is started with
+ * --add-modules jdk.incubator.vector. Without it, Solver scans the changed
+ * units one cell at a time. Scanners reuse their result array, so each
+ * thread has its own.
+ */
+abstract class UnitScanner {
+    /** Set to false to use the scalar scan even when the Vector API is available */
+    static final String ENABLED_PROPERTY = "sudoku.vector";
+
+    private static final String VECTOR_SCANNER = "sudoku.VectorUnitScanner";
+    private static final boolean AVAILABLE = Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"))
+            && create(Layout.STANDARD) != null;
+    private static final ThreadLocal<UnitScanner[]> SCANNERS =
+            ThreadLocal.withInitial(() -> new UnitScanner[Layout.MAX_BOX_SIZE + 1]);
+
+    /**
+     * @param layout: Shape of the grids to scan
+     * @return The calling thread's scanner for the layout, or null if the
+     *         Vector API is not available
+     */
+    static UnitScanner forThread(Layout layout) {
+        if(!AVAILABLE) {
+            return null;
+        }
+        UnitScanner[] scanners = SCANNERS.get();
+        UnitScanner scanner = scanners[layout.getBoxSize()];
+        if(scanner == null) {
+            scanner = create(layout);
+            scanners[layout.getBoxSize()] = scanner;
+        }
+        return scanner;
+    }
+
+    /**
+     * @return true if unit scans use the Vector API
+     */
+    static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * @return A new VectorUnitScanner, or null if it is missing or its module isn't loaded
+     */
+    private static UnitScanner create(Layout layout) {
+        try {
+            return (UnitScanner) Class.forName(VECTOR_SCANNER).getDeclaredConstructor(Layout.class)
+                    .newInstance(layout);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param candidates: Candidate mask of every cell, see {@link grid.Grid#getCandidateMasks()}
+     * @return Mask of the candidates in exactly one unsolved cell of each unit,
+     *         indexed by unit (see {@link Layout}). The array is reused by later
+     *         calls, and may be longer than the number of units.
+     */
+    abstract int[] findUniqueCandidates(int[] candidates);
+}
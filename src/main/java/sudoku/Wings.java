@@ -0,0 +1,155 @@
+package sudoku;
+
+import grid.Bitboard;
+import grid.Candidates;
+import grid.Grid;
+import grid.Layout;
+
+import java.util.Arrays;
+
+/**
+ * Wing techniques, which find a pivot cell and two pincer cells that it sees.
+ * Whichever candidate the pivot takes forces one of the pincers to a shared
+ * candidate z, so z can be eliminated from every cell which sees the pincers
+ * (and the pivot, if the pivot can also be z).
+ * Cells are found by intersecting the bitboards of candidate positions and
+ * peers, see {@link Bitboard} and {@link Layout#getPeerBoards()}. The
+ * bitboards of cells with two and three candidates are kept in arrays reused
+ * by each thread.
+ */
+public final class Wings {
+    // bitboards of the pair and triple cells, sized for the largest grids
+    private static final ThreadLocal<long[][]> CELLS = ThreadLocal.withInitial(
+            () -> new long[2][Layout.of(Layout.MAX_BOX_SIZE).getBitboardLength()]);
+
+    private Wings() {}
+
+    /**
+     * Uses the XY-Wing rule to eliminate candidates:
+     * If a cell with candidates xy sees a cell with candidates xz and a cell
+     * with candidates yz, then z can be eliminated from all cells which see
+     * both the xz and yz cells.
+     * @param grid: Grid from which candidates will be eliminated
+     */
+    public static void xyWingElimination(Grid grid) {
+        int length = grid.getLayout().getBitboardLength();
+        long[] peers = grid.getLayout().getPeerBoards();
+        long[] positions = grid.getCandidatePositions();
+        long[] pairs = findCells(grid, 2, CELLS.get()[0]);
+        for(int word = 0; word < length; word++) {
+            for(long bits = pairs[word]; bits != 0; bits &= bits - 1) {
+                int pivot = Bitboard.cell(word, bits);
+                int mask = grid.getCandidateMask(pivot) & Candidates.ALL;
+                if(Candidates.count(mask) != 2) continue; // changed by an earlier wing
+                int x = Candidates.first(mask);
+                int y = Candidates.first(Candidates.withoutFirst(mask));
+                // pincers are pairs of candidates which contain x and not y
+                for(int w = 0; w < length; w++) {
+                    long pincers = pairs[w] & peers[pivot * length + w]
+                            & positions[x * length + w] & ~positions[y * length + w];
+                    for(; pincers != 0; pincers &= pincers - 1) {
+                        int xz = Bitboard.cell(w, pincers);
+                        int z = Candidates.first(grid.getCandidateMask(xz) & Candidates.ALL & ~Candidates.of(x));
+                        if(z != 0 && !eliminateFromPincers(grid, positions, pairs, pivot, xz, y, z, x, false)) {
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Uses the XYZ-Wing rule to eliminate candidates:
+     * If a cell with candidates xyz sees a cell with candidates xz and a cell
+     * with candidates yz, then z can be eliminated from all cells which see
+     * all three cells.
+     * @param grid: Grid from which candidates will be eliminated
+     */
+    public static void xyzWingElimination(Grid grid) {
+        int length = grid.getLayout().getBitboardLength();
+        long[] peers = grid.getLayout().getPeerBoards();
+        long[] positions = grid.getCandidatePositions();
+        long[][] cells = CELLS.get();
+        long[] pairs = findCells(grid, 2, cells[0]);
+        long[] triples = findCells(grid, 3, cells[1]);
+        for(int word = 0; word < length; word++) {
+            for(long bits = triples[word]; bits != 0; bits &= bits - 1) {
+                int pivot = Bitboard.cell(word, bits);
+                int mask = grid.getCandidateMask(pivot) & Candidates.ALL;
+                if(Candidates.count(mask) != 3) continue; // changed by an earlier wing
+                for(int z = Candidates.first(mask); z != 0; z = nextCandidate(mask, z)) {
+                    int xy = mask & ~Candidates.of(z);
+                    int x = Candidates.first(xy);
+                    int y = Candidates.first(Candidates.withoutFirst(xy));
+                    // pincers are pairs of candidates xz
+                    for(int w = 0; w < length; w++) {
+                        long pincers = pairs[w] & peers[pivot * length + w]
+                                & positions[x * length + w] & positions[z * length + w];
+                        for(; pincers != 0; pincers &= pincers - 1) {
+                            int xz = Bitboard.cell(w, pincers);
+                            if(!eliminateFromPincers(grid, positions, pairs, pivot, xz, y, z, x, true)) {
+                                return;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the yz pincers of a wing with pivot and xz pincer, and eliminates z
+     * from the cells which see both pincers, and the pivot if seePivot is true.
+     * @return false if a cell is left without candidates
+     */
+    private static boolean eliminateFromPincers(Grid grid, long[] positions, long[] pairs, int pivot, int xz,
+                                             int y, int z, int x, boolean seePivot) {
+        int length = grid.getLayout().getBitboardLength();
+        long[] peers = grid.getLayout().getPeerBoards();
+        for(int w = 0; w < length; w++) {
+            long pincers = pairs[w] & peers[pivot * length + w]
+                    & positions[y * length + w] & positions[z * length + w]
+                    & ~positions[x * length + w];
+            for(; pincers != 0; pincers &= pincers - 1) {
+                int yz = Bitboard.cell(w, pincers);
+                for(int v = 0; v < length; v++) {
+                    long targets = positions[z * length + v]
+                            & peers[xz * length + v] & peers[yz * length + v];
+                    if(seePivot) {
+                        targets &= peers[pivot * length + v];
+                    }
+                    for(; targets != 0; targets &= targets - 1) {
+                        int target = Bitboard.cell(v, targets);
+                        if(target != pivot && Candidates.contains(grid.getCandidateMask(target), z)
+                                && !grid.eliminateCandidate(target, z)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param cells: Array of at least the layout's bitboard length, overwritten
+     * @return cells, holding the bitboard of the unsolved cells with count candidates
+     */
+    private static long[] findCells(Grid grid, int count, long[] cells) {
+        Arrays.fill(cells, 0, grid.getLayout().getBitboardLength(), 0);
+        for(int cell = 0; cell < grid.getNumCells(); cell++) {
+            if(!grid.isSolved(cell) && Candidates.count(grid.getCandidateMask(cell)) == count) {
+                Bitboard.add(cells, 0, cell);
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * @return The next candidate in mask after candidate, or 0 if there are none
+     */
+    private static int nextCandidate(int mask, int candidate) {
+        return Candidates.first(mask & ~((Candidates.of(candidate) << 1) - 1));
+    }
+}
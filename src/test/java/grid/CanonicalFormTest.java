@@ -0,0 +1,81 @@
+package grid;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class CanonicalFormTest {
+    private static final String[] PUZZLES = {
+            "003020600900305001001806400008102900700000008006708200002609500800203009005010300",
+            "200080300060070084030500209000105408000000000402706000301007040720040060004010003",
+            "000000907000420180000705026100904000050000040000507009920108000034059000507000000",
+    };
+
+    @Test
+    public void permutedGridsHaveSameForm() {
+        for(String puzzle : PUZZLES) {
+            int[] values = GridTest.parse(puzzle);
+            int[] form = CanonicalForm.of(values).getValues();
+            // bands 2, 0, 1, rows within each band 1, 2, 0, stacks 1, 2, 0, columns within each stack 2, 0, 1
+            int[] permuted = permute(values, new int[] {2, 0, 1}, new int[] {1, 2, 0});
+            permuted = transpose(permute(transpose(permuted), new int[] {1, 2, 0}, new int[] {2, 0, 1}));
+            assertArrayEquals(puzzle, form, CanonicalForm.of(permuted).getValues());
+        }
+    }
+
+    @Test
+    public void transposedGridsHaveSameForm() {
+        for(String puzzle : PUZZLES) {
+            int[] values = GridTest.parse(puzzle);
+            assertArrayEquals(puzzle, CanonicalForm.of(values).getValues(),
+                    CanonicalForm.of(transpose(values)).getValues());
+        }
+    }
+
+    @Test
+    public void relabelledGridsHaveSameForm() {
+        int[] labels = {0, 5, 9, 1, 7, 3, 8, 2, 6, 4};
+        for(String puzzle : PUZZLES) {
+            int[] values = GridTest.parse(puzzle);
+            int[] relabelled = new int[values.length];
+            for(int cell = 0; cell < values.length; cell++) {
+                relabelled[cell] = labels[values[cell]];
+            }
+            assertArrayEquals(puzzle, CanonicalForm.of(values).getValues(),
+                    CanonicalForm.of(relabelled).getValues());
+        }
+    }
+
+    @Test
+    public void formMapsBackToGrid() {
+        for(String puzzle : PUZZLES) {
+            int[] values = GridTest.parse(puzzle);
+            CanonicalForm form = CanonicalForm.of(values);
+            assertArrayEquals(puzzle, form.getValues(), form.toCanonical(values));
+            assertArrayEquals(puzzle, values, form.fromCanonical(form.getValues()));
+        }
+    }
+
+    /**
+     * @param bandOrder: Band of the grid to take for each band
+     * @param rowOrder: Row within the band to take for each row of a band
+     */
+    private static int[] permute(int[] values, int[] bandOrder, int[] rowOrder) {
+        int[] permuted = new int[values.length];
+        for(int row = 0; row < 9; row++) {
+            int source = bandOrder[row / 3] * 3 + rowOrder[row % 3];
+            System.arraycopy(values, source * 9, permuted, row * 9, 9);
+        }
+        return permuted;
+    }
+
+    private static int[] transpose(int[] values) {
+        int[] transposed = new int[values.length];
+        for(int row = 0; row < 9; row++) {
+            for(int col = 0; col < 9; col++) {
+                transposed[col * 9 + row] = values[row * 9 + col];
+            }
+        }
+        return transposed;
+    }
+}
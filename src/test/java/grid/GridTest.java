@@ -0,0 +1,85 @@
+package grid;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GridTest {
+    private static final String PUZZLE =
+            "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+
+    static int[] parse(String digits) {
+        int[] values = new int[digits.length()];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = digits.charAt(i) - '0';
+        }
+        return values;
+    }
+
+    @Test
+    public void rollbackRestoresCandidatesAfterNestedSnapshots() {
+        Grid grid = new Grid("Grid 01", parse(PUZZLE));
+        int[] initial = grid.getCandidateMasks().clone();
+        int initialSolved = countSolved(grid);
+
+        grid.pushSnapshot();
+        // cell 0 can be 4 or 5, cell 1 can be 4, 5, 7, or 8
+        assertTrue(grid.eliminateCandidate(0, 4));
+        assertTrue(grid.setSolution(1, 4));
+        int[] outer = grid.getCandidateMasks().clone();
+
+        grid.pushSnapshot();
+        assertTrue(grid.setSolution(0, 5));
+        int[] inner = grid.getCandidateMasks().clone();
+        grid.pushSnapshot();
+        // cell 3 can be 4 or 9
+        assertTrue(grid.eliminateCandidate(3, 4));
+        assertTrue(grid.setSolution(3, 9));
+        grid.rollback();
+        assertArrayEquals(inner, grid.getCandidateMasks());
+        grid.popSnapshot();
+        grid.rollback();
+        assertArrayEquals(outer, grid.getCandidateMasks());
+        grid.popSnapshot();
+
+        grid.rollback();
+        assertArrayEquals(initial, grid.getCandidateMasks());
+        assertEquals(initialSolved, countSolved(grid));
+        assertFalse(grid.getSolvingFailed());
+        grid.popSnapshot();
+    }
+
+    @Test
+    public void rollbackRestoresFailedFlag() {
+        Grid grid = new Grid("Grid 01", parse(PUZZLE));
+        int[] initial = grid.getCandidateMasks().clone();
+
+        grid.pushSnapshot();
+        // cell 0 can only be 4 or 5
+        assertTrue(grid.eliminateCandidate(0, 4));
+        assertFalse(grid.eliminateCandidate(0, 5));
+        assertTrue(grid.getSolvingFailed());
+        grid.rollback();
+        assertFalse(grid.getSolvingFailed());
+        assertArrayEquals(initial, grid.getCandidateMasks());
+        grid.popSnapshot();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rollbackWithoutSnapshotThrows() {
+        new Grid("Grid 01", parse(PUZZLE)).rollback();
+    }
+
+    private static int countSolved(Grid grid) {
+        int numSolved = 0;
+        for(int cell = 0; cell < grid.getNumCells(); cell++) {
+            if(grid.isSolved(cell)) {
+                numSolved++;
+            }
+        }
+        return numSolved;
+    }
+}
@@ -0,0 +1,119 @@
+package sudoku;
+
+import grid.Grid;
+import grid.Layout;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryGridFormatTest {
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("grids", ".bin");
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void roundTrip4x4() throws IOException {
+        checkRoundTrip(Layout.of(2));
+    }
+
+    @Test
+    public void roundTrip9x9() throws IOException {
+        checkRoundTrip(Layout.STANDARD);
+    }
+
+    @Test
+    public void roundTrip16x16() throws IOException {
+        checkRoundTrip(Layout.of(4));
+    }
+
+    @Test
+    public void roundTrip25x25() throws IOException {
+        checkRoundTrip(Layout.of(5));
+    }
+
+    @Test
+    public void recordSizes() {
+        assertEquals(8, BinaryGridFormat.recordSize(Layout.of(2)));
+        assertEquals(41, BinaryGridFormat.recordSize(Layout.STANDARD));
+        assertEquals(256, BinaryGridFormat.recordSize(Layout.of(4)));
+        assertEquals(625, BinaryGridFormat.recordSize(Layout.of(5)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMixedSizes() throws IOException {
+        try(BinaryGridWriter writer = new BinaryGridWriter(file)) {
+            writer.write(solution(Layout.STANDARD));
+            writer.write(solution(Layout.of(4)));
+        }
+    }
+
+    /**
+     * Writes a solved grid, a puzzle with every other cell cleared, and an
+     * empty record, and checks they are read back unchanged and in order.
+     */
+    private void checkRoundTrip(Layout layout) throws IOException {
+        int[] solution = solution(layout);
+        int[] puzzle = solution.clone();
+        for(int cell = 0; cell < puzzle.length; cell += 2) {
+            puzzle[cell] = 0;
+        }
+        try(BinaryGridWriter writer = new BinaryGridWriter(file)) {
+            writer.write(new Grid("solution", layout, solution));
+            writer.write(puzzle);
+            writer.writeEmpty();
+            assertEquals(3, writer.getNumGrids());
+        }
+        assertEquals(BinaryGridFormat.HEADER_SIZE + 3 * BinaryGridFormat.recordSize(layout), file.length());
+        try(BinaryGridReader reader = new BinaryGridReader(file)) {
+            assertEquals(layout, reader.getLayout());
+            assertEquals(3, reader.getNumGrids());
+            Grid grid = reader.next(null);
+            assertEquals("Grid 1", grid.getName());
+            assertArrayEquals(solution, values(grid));
+            assertArrayEquals(puzzle, values(reader.next(grid)));
+            assertArrayEquals(new int[layout.getNumCells()], values(reader.next(grid)));
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    /**
+     * @return Values of a solved grid, with each row shifted from the last
+     */
+    static int[] solution(Layout layout) {
+        int size = layout.getSize();
+        int boxSize = layout.getBoxSize();
+        int[] values = new int[layout.getNumCells()];
+        for(int row = 0; row < size; row++) {
+            int shift = row % boxSize * boxSize + row / boxSize;
+            for(int col = 0; col < size; col++) {
+                values[row * size + col] = (shift + col) % size + 1;
+            }
+        }
+        assertTrue(new Grid("solution", layout, values).isSolved());
+        return values;
+    }
+
+    private static int[] values(Grid grid) {
+        int[] values = new int[grid.getNumCells()];
+        for(int cell = 0; cell < values.length; cell++) {
+            values[cell] = grid.getSolution(cell);
+        }
+        return values;
+    }
+}
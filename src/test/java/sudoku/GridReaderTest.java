@@ -0,0 +1,96 @@
+package sudoku;
+
+import grid.Grid;
+import grid.Layout;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class GridReaderTest {
+    private static final String NAMED_GRID = "Grid B\n200080300\n060070084\n030500209\n000105408\n000000000\n"
+            + "402706000\n301007040\n720040060\n004010003\n";
+
+    @Test
+    public void readsBothFormats() {
+        List<String> read = readAll(SearchTest.PUZZLES[0] + "\n\n" + NAMED_GRID);
+        assertEquals(Arrays.asList("Grid 1", "Grid B"), read);
+    }
+
+    @Test
+    public void recoversFromBadCharacter() {
+        String line = SearchTest.PUZZLES[0].substring(0, 80) + "x";
+        assertEquals(Arrays.asList("Line 1: invalid character 'x' at position 81", "Grid 2"),
+                readAll(line + "\n" + SearchTest.PUZZLES[1] + "\n"));
+    }
+
+    @Test
+    public void recoversFromBadCharacterInRow() {
+        String grid = "Grid A\n003020600\n900305001\n001806400\n008102900\n7000?0008\n006708200\n002609500\n"
+                + "800203009\n005010300\n";
+        assertEquals(Arrays.asList("Line 6: invalid character '?' at position 5", "Grid 11"),
+                readAll(grid + SearchTest.PUZZLES[1] + "\n"));
+    }
+
+    @Test
+    public void recoversFromShortRecord() {
+        String grid = "Grid A\n003020600\n900305001\n001806400\n008102900\n700000008\n";
+        assertEquals(Arrays.asList("Line 7: row must contain 9 digits, has 6", "Grid B"), readAll(grid + NAMED_GRID));
+    }
+
+    @Test
+    public void recoversFromShortRow() {
+        String grid = "Grid A\n003020600\n90030500\n001806400\n008102900\n700000008\n006708200\n002609500\n"
+                + "800203009\n005010300\n";
+        assertEquals(Arrays.asList("Line 3: row must contain 9 digits, has 8", "Grid B"), readAll(grid + NAMED_GRID));
+    }
+
+    @Test
+    public void recoversFromShortLine() {
+        String line = SearchTest.PUZZLES[0].substring(0, 80);
+        assertEquals(Arrays.asList("Line 1: grid has 80 values, which is not 16, 81, 256, or 625", "Grid 2"),
+                readAll(line + "\n" + SearchTest.PUZZLES[1] + "\n"));
+    }
+
+    @Test
+    public void readsValuesIntoReusedGrid() {
+        GridReader reader = reader(SearchTest.PUZZLES[0] + "\n" + SearchTest.PUZZLES[1] + "\n");
+        Grid first = reader.next(null);
+        Grid second = reader.next(first);
+        assertSame(first, second);
+        assertEquals(Layout.STANDARD, second.getLayout());
+        assertArrayEquals(new Grid("Grid 2", SearchTest.parse(SearchTest.PUZZLES[1])).getCandidateMasks(),
+                second.getCandidateMasks());
+        assertFalse(reader.hasNext());
+    }
+
+    /**
+     * Reads every grid the way Solver.solveAll does, carrying on after errors.
+     * @return Name of each grid read, or the message of each error, in order
+     */
+    private static List<String> readAll(String text) {
+        GridReader reader = reader(text);
+        List<String> read = new ArrayList<>();
+        while(true) {
+            try {
+                if(!reader.hasNext()) break;
+                read.add(reader.next().getName());
+            } catch (IllegalArgumentException e) {
+                read.add(e.getMessage());
+            }
+        }
+        return read;
+    }
+
+    private static GridReader reader(String text) {
+        return new GridReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
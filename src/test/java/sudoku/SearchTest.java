@@ -0,0 +1,85 @@
+package sudoku;
+
+import grid.Grid;
+import grid.Layout;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SearchTest {
+    static final String[] PUZZLES = {
+            "003020600900305001001806400008102900700000008006708200002609500800203009005010300",
+            "200080300060070084030500209000105408000000000402706000301007040720040060004010003",
+            "000000907000420180000705026100904000050000040000507009920108000034059000507000000",
+    };
+    private static final int LIMIT = 1000;
+
+    static int[] parse(String digits) {
+        int[] values = new int[digits.length()];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = digits.charAt(i) - '0';
+        }
+        return values;
+    }
+
+    @Test
+    public void countsMatchDancingLinksOnUniqueGrids() {
+        for(String puzzle : PUZZLES) {
+            assertEquals(puzzle, 1, checkCount(parse(puzzle)));
+        }
+    }
+
+    @Test
+    public void countsMatchDancingLinksOnGridsWithManySolutions() {
+        for(String puzzle : PUZZLES) {
+            int[] values = parse(puzzle);
+            // removing givens from the first rows leaves several solutions
+            int removed = 0;
+            for(int cell = 0; cell < values.length && removed < 6; cell++) {
+                if(values[cell] != 0) {
+                    values[cell] = 0;
+                    removed++;
+                }
+            }
+            assertTrue(puzzle, checkCount(values) > 1);
+        }
+        assertEquals(LIMIT, checkCount(new int[Layout.STANDARD.getNumCells()]));
+        assertEquals(288, checkCount(new int[Layout.of(2).getNumCells()]));
+    }
+
+    @Test
+    public void countsMatchDancingLinksOnUnsolvableGrids() {
+        int[] values = parse(PUZZLES[0]);
+        // cell 0 can only be 4 or 5, and 4 and 5 are placed in its row
+        values[1] = 4;
+        values[7] = 5;
+        assertEquals(0, checkCount(values));
+    }
+
+    @Test
+    public void solveMatchesDancingLinks() {
+        for(String puzzle : PUZZLES) {
+            Grid grid = new Grid(puzzle, parse(puzzle));
+            Grid expected = new Grid(puzzle, parse(puzzle));
+            assertTrue(new Search().solve(grid));
+            assertTrue(new DancingLinksEngine().solve(expected));
+            assertArrayEquals(puzzle, expected.getCandidateMasks(), grid.getCandidateMasks());
+        }
+    }
+
+    /**
+     * Counts the solutions of the values with both Search and DancingLinksEngine,
+     * checking they agree and that counting leaves the grid as it was.
+     * @return Number of solutions, at most LIMIT
+     */
+    private static int checkCount(int[] values) {
+        Grid grid = new Grid("grid", values);
+        int[] before = grid.getCandidateMasks().clone();
+        int count = new Search().countSolutions(grid, LIMIT);
+        assertArrayEquals(before, grid.getCandidateMasks());
+        assertEquals(new DancingLinksEngine().countSolutions(new Grid("grid", values), LIMIT), count);
+        return count;
+    }
+}
@@ -0,0 +1,71 @@
+package sudoku;
+
+import grid.Grid;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SolutionWriterTest {
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("solutions", ".bin");
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void invalidGridsKeepTheirRecord() throws IOException {
+        String[] puzzles = SearchTest.PUZZLES;
+        String text = "x" + puzzles[0].substring(1) + "\n"
+                + puzzles[0] + "\n"
+                + puzzles[1].substring(0, 80) + "\n"
+                + puzzles[1] + "\n"
+                + puzzles[2] + "\n";
+        try(GridReader grids = new GridReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)));
+            BinaryGridWriter writer = new BinaryGridWriter(file)) {
+            Solver.solveAll(grids, new DancingLinksEngine(), new SolutionWriter(writer, Reporter.SILENT));
+        }
+
+        try(BinaryGridReader reader = new BinaryGridReader(file)) {
+            assertEquals(5, reader.getNumGrids());
+            assertArrayEquals(new int[81], values(reader.next()));
+            assertSolves(puzzles[0], values(reader.next()));
+            assertArrayEquals(new int[81], values(reader.next()));
+            assertSolves(puzzles[1], values(reader.next()));
+            assertSolves(puzzles[2], values(reader.next()));
+        }
+    }
+
+    /**
+     * Checks that the solution is complete and keeps the puzzle's givens.
+     */
+    private static void assertSolves(String puzzle, int[] solution) {
+        int[] givens = SearchTest.parse(puzzle);
+        for(int cell = 0; cell < givens.length; cell++) {
+            assertTrue(puzzle, solution[cell] != 0 && (givens[cell] == 0 || givens[cell] == solution[cell]));
+        }
+        assertTrue(puzzle, new Grid(puzzle, solution).isSolved());
+    }
+
+    private static int[] values(Grid grid) {
+        int[] values = new int[grid.getNumCells()];
+        for(int cell = 0; cell < values.length; cell++) {
+            values[cell] = grid.getSolution(cell);
+        }
+        return values;
+    }
+}
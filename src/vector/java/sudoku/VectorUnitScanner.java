@@ -0,0 +1,57 @@
+package sudoku;
+
+import grid.Candidates;
+import grid.Layout;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Scans the units of a grid with the Vector API, one unit per lane. Each step
+ * gathers the cell at the same position of a vector's worth of units, so the
+ * seen once and seen twice masks of every unit are built in size gathers per
+ * vector of units, e.g. 2 x 9 for a 9x9 grid with 512-bit vectors. The lanes
+ * past the last unit gather cell 0 at every position, so they always come out
+ * empty.
+ */
+final class VectorUnitScanner extends UnitScanner {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private final int size;
+    private final int numVectors; // vectors needed to hold a lane for each unit
+    private final int[] indexes; // cell at each position of each unit, position-major
+    private final int[] unique;
+
+    VectorUnitScanner(Layout layout) {
+        int lanes = SPECIES.length();
+        size = layout.getSize();
+        numVectors = (layout.getNumUnits() + lanes - 1) / lanes;
+        indexes = new int[size * numVectors * lanes];
+        for(int unit = 0; unit < layout.getNumUnits(); unit++) {
+            int[] cells = layout.getUnitCells(unit);
+            for(int position = 0; position < size; position++) {
+                indexes[position * numVectors * lanes + unit] = cells[position];
+            }
+        }
+        unique = new int[numVectors * lanes];
+    }
+
+    @Override
+    int[] findUniqueCandidates(int[] candidates) {
+        int lanes = SPECIES.length();
+        for(int v = 0; v < numVectors; v++) {
+            IntVector seenOnce = IntVector.zero(SPECIES);
+            IntVector seenTwice = seenOnce;
+            for(int position = 0; position < size; position++) {
+                IntVector masks = IntVector.fromArray(SPECIES, candidates, 0, indexes,
+                        (position * numVectors + v) * lanes);
+                // all ones for unsolved cells and zero for solved cells, from bit 0
+                IntVector unsolved = masks.and(Candidates.UNSOLVED).neg();
+                masks = masks.and(unsolved).and(Candidates.ALL);
+                seenTwice = seenTwice.or(seenOnce.and(masks));
+                seenOnce = seenOnce.or(masks);
+            }
+            seenOnce.and(seenTwice.not()).intoArray(unique, v * lanes);
+        }
+        return unique;
+    }
+}